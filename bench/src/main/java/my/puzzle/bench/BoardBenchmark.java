@@ -0,0 +1,93 @@
+package my.puzzle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.heuristic.ManhattanHeuristic;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * single PuzzleBoard operations on one board of each size.
+ *
+ * forEachMove prices the moves the way the solvers do, without building a
+ * board; neighbors() builds all of them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    @Param({"puzzle3x3-16.txt", "puzzle36.txt", "puzzle02.txt"})     // 3-by-3, 4-by-4, 9-by-9
+    public String file;
+
+    private int[][] blocks;
+
+    private PuzzleBoard board;
+
+    private PuzzleBoard same;       // equal to board but a different object
+
+    private final Heuristic heuristic = new ManhattanHeuristic();
+
+    private int h;
+
+    @Setup
+    public void setUp() {
+        blocks = Corpus.read(file);
+        board = new PuzzleBoard(blocks);
+        same = new PuzzleBoard(blocks);
+        h = heuristic.estimate(board);
+    }
+
+    @Benchmark
+    public PuzzleBoard construct() {
+        return new PuzzleBoard(blocks);
+    }
+
+    @Benchmark
+    public PuzzleBoard copy() {
+        return board.copy();
+    }
+
+    @Benchmark
+    public void neighbors(Blackhole bh) {
+        for (PuzzleBoard b : board.neighbors()) {
+            bh.consume(b);
+        }
+    }
+
+    @Benchmark
+    public void forEachMove(Blackhole bh) {
+        board.forEachMove((key, from) -> bh.consume(heuristic.update(board, h, from, board.getVacancy())));
+    }
+
+    @Benchmark
+    public int manhattan() {
+        return board.getManhattan();
+    }
+
+    @Benchmark
+    public PuzzleBoard twin() {
+        return board.twin();
+    }
+
+    @Benchmark
+    public boolean equalBoards() {
+        return board.equals(same);
+    }
+}
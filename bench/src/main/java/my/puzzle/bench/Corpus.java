@@ -0,0 +1,64 @@
+package my.puzzle.bench;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.princeton.cs.algs4.In;
+
+/**
+ * the shipped puzzle*.txt files, read once per trial.
+ *
+ * the directory is ../src (the benchmarks run from bench/) unless the
+ * puzzle.dir system property says otherwise.
+ */
+final class Corpus {
+
+    private Corpus() { }
+
+    static Path directory() {
+        return Paths.get(System.getProperty("puzzle.dir", "../src"));
+    }
+
+    /**
+     * blocks of every puzzle file whose board is n-by-n, in file name order
+     */
+    static List<int[][]> ofSize(int n) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(directory(), "puzzle*.txt")) {
+            for (Path p : dir)  files.add(p);
+        }
+        Collections.sort(files);
+
+        List<int[][]> boards = new ArrayList<>();
+        for (Path file : files) {
+            int[][] blocks = read(file);
+            if (blocks.length == n)     boards.add(blocks);
+        }
+        if (boards.isEmpty())
+            throw new IllegalArgumentException("no " + n + "-by-" + n + " puzzles in " + directory());
+        return boards;
+    }
+
+    static int[][] read(String name) {
+        return read(directory().resolve(name));
+    }
+
+    private static int[][] read(Path file) {
+        In in = new In(file.toFile());    // input file
+        int n = in.readInt();
+        int[][] blocks = new int[n][n];
+
+        for (int i = 0; i < blocks.length; i++) {
+            for (int j = 0; j < blocks[0].length; j++) {
+                blocks[i][j] = in.readInt();
+            }
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,63 @@
+package my.puzzle.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import my.puzzle.controller.Solver;
+import my.puzzle.controller.SolverOptions;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * the corpus solves of SolverBenchmark with Mode.PARALLEL, over the
+ * number of search threads, so the 1 to N core scaling is one series:
+ *
+ *   java -jar target/benchmarks.jar ParallelSolverBenchmark -p threads=1,2,4,8
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelSolverBenchmark {
+
+    @Param({"3", "4"})
+    public int size;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private List<int[][]> corpus;
+
+    private SolverOptions options;
+
+    @Setup
+    public void setUp() throws IOException {
+        corpus = Corpus.ofSize(size);
+        options = new SolverOptions().setMode(Solver.Mode.PARALLEL).setThreads(threads);
+    }
+
+    @Benchmark
+    public int solveCorpus(SolverBenchmark.Counters counters) {
+        int moves = 0;
+        for (int[][] blocks : corpus) {
+            Solver solver = new Solver(new PuzzleBoard(blocks), options);
+            counters.expansions += solver.expansions();
+            moves += solver.moves();
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,107 @@
+package my.puzzle.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import my.puzzle.model.PackedTiles;
+import my.puzzle.model.PermutationRank;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * PermutationRank throughput, since every table lookup goes through it.
+ *
+ * whole boards are ranked from the packed encoding; partial placements
+ * are ranked straight off a board, as pattern database lookups do, with a
+ * default pattern database group.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RankBenchmark {
+
+    private static final int BOARDS = 1024;     // cycled through so no single input gets cached
+
+    @Param({"3", "4"})
+    public int n;
+
+    private long[] packed;
+
+    private long[] ranks;
+
+    private PuzzleBoard[] boards;
+
+    private int[] group;        // a pattern database group of the board size
+
+    private int[] pos;
+
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        int cells = n * n;
+        group = n == 3 ? new int[] { 1, 2, 3, 4 } : new int[] { 1, 5, 6, 9, 10, 13 };
+        pos = new int[group.length];
+        Random random = new Random(42);
+        packed = new long[BOARDS];
+        ranks = new long[BOARDS];
+        boards = new PuzzleBoard[BOARDS];
+        int[] perm = new int[cells];
+        for (int k = 0; k < BOARDS; k++) {
+            for (int i = 0; i < cells; i++)     perm[i] = i;
+            for (int i = cells - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = perm[i];
+                perm[i] = perm[j];
+                perm[j] = t;
+            }
+            int[][] blocks = new int[n][n];
+            for (int i = 0; i < cells; i++) {
+                packed[k] = PackedTiles.set(packed[k], i, perm[i]);
+                blocks[i / n][i % n] = perm[i];
+            }
+            boards[k] = new PuzzleBoard(blocks);
+            ranks[k] = PermutationRank.rank(packed[k], cells);
+        }
+    }
+
+    @Benchmark
+    public long rankBoard() {
+        next = (next + 1) & (BOARDS - 1);
+        return PermutationRank.rank(packed[next], n * n);
+    }
+
+    @Benchmark
+    public long unrankBoard() {
+        next = (next + 1) & (BOARDS - 1);
+        return PermutationRank.unrank(ranks[next], n * n);
+    }
+
+    @Benchmark
+    public long rankGroup() {
+        next = (next + 1) & (BOARDS - 1);
+        return PermutationRank.rank(boards[next], group, -1, -1, false);
+    }
+
+    @Benchmark
+    public int unrankGroup() {
+        next = (next + 1) & (BOARDS - 1);
+        int cells = n * n;
+        PermutationRank.unrank(ranks[next] % PermutationRank.placements(cells, group.length), group.length, cells, pos);
+        return pos[group.length - 1];
+    }
+}
@@ -0,0 +1,78 @@
+package my.puzzle.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import my.puzzle.controller.Solver;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * end-to-end solves of every shipped puzzle of one size.
+ *
+ * one operation solves the whole group, so ops/s is corpus passes per
+ * second; the expansions counter is reported as a rate next to it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+    @Param({"2", "3", "4"})
+    public int size;
+
+    @Param({"ASTAR", "IDASTAR"})
+    public String mode;
+
+    private List<int[][]> corpus;
+
+    private Solver.Mode engine;
+
+    @Setup
+    public void setUp() throws IOException {
+        corpus = Corpus.ofSize(size);
+        engine = Solver.Mode.valueOf(mode);
+    }
+
+    /**
+     * expansions performed, reported per second
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long expansions;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            expansions = 0;
+        }
+    }
+
+    @Benchmark
+    public int solveCorpus(Counters counters) {
+        int moves = 0;
+        for (int[][] blocks : corpus) {
+            Solver solver = new Solver(new PuzzleBoard(blocks), engine);
+            counters.expansions += solver.expansions();
+            moves += solver.moves();
+        }
+        return moves;
+    }
+}
@@ -1,7 +1,14 @@
-import edu.princeton.cs.algs4.In;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 import edu.princeton.cs.algs4.Queue;
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.model.BoardReader;
+import my.puzzle.model.Grid;
+import my.puzzle.model.PackedTiles;
 
-public class Board {
+public class Board implements Grid {
 
     private final int n;
 
@@ -9,7 +16,14 @@ public class Board {
 
     private final int manhattan;
 
-    final char[] blockz;    // 1 - dimension char array for improving performance
+    private final Heuristic heuristic;  // optional estimate carried from board to neighbor, may be null
+
+    private final int estimate;
+
+    private final long state;       // the heuristic's (see Heuristic.state), 0 without one
+
+    private final long packed;      // 4 bits per block, boards up to 4-by-4
+    private final long[] wide;      // 8 bits per block for larger boards, null otherwise
 
     private Queue<Board> neighbors;
 
@@ -17,17 +31,94 @@ public class Board {
 
     //    private int lastMoveDirection = 0;    // this is useless by assignent's requirements
 
-    private static final int TRANS = 48;
-
     public Board(int[][] blocks)           // construct a board from an n-by-n array of blocks
+    {
+        this(blocks, null);
+    }
+    public Board(int[][] blocks, Heuristic heuristic)   // ... whose neighbors keep heuristic's estimate up to date
     {
         vacancy = validate(blocks);     // validate
         n = blocks.length;              // set length
-        blockz = copy(blocks);          // allocate array
+        if (PackedTiles.fitsLong(n)) {  // pack blocks
+            packed = PackedTiles.pack(blocks);
+            wide = null;
+        } else {
+            packed = 0;
+            wide = PackedTiles.packWide(blocks);
+        }
 
         hamming = getHamming();
         manhattan = getManhattan();
+
+        this.heuristic = heuristic;
+        estimate = heuristic == null ? manhattan : heuristic.estimate(this);
+        state = heuristic == null ? 0 : heuristic.state(this);
     }
+    public Board(Grid grid)                // ... from any Grid, such as a BoardReader, without an int[][]
+    {
+        n = grid.dimension();
+        int len = n * n;
+        long p = 0;
+        long[] w = PackedTiles.fitsLong(n) ? null : new long[PackedTiles.words(n)];
+        int v = -1;
+        for (int i = 0; i < len; i++) {
+            int block = grid.tileAt(i);
+            if (w == null)  p = PackedTiles.set(p, i, block);
+            else            PackedTiles.set(w, i, block);
+            if (block == 0)     v = i;
+        }
+        if (v == -1)    throw new IllegalArgumentException();
+        packed = p;
+        wide = w;
+        vacancy = v;
+
+        hamming = getHamming();
+        manhattan = getManhattan();
+
+        heuristic = null;
+        estimate = manhattan;
+        state = 0;
+    }
+    /**
+     * copy of other with the entries at a and b swapped, done on the packed
+     * blocks without going through an int[][]. when one of them is the blank
+     * only one block moved, so hamming and manhattan are updated by a delta
+     */
+    private Board(Board other, int a, int b)
+    {
+        n = other.n;
+        heuristic = other.heuristic;
+        if (other.vacancy == a)         vacancy = b;
+        else if (other.vacancy == b)    vacancy = a;
+        else                            vacancy = other.vacancy;
+
+        if (other.wide == null) {
+            int ta = PackedTiles.get(other.packed, a);
+            int tb = PackedTiles.get(other.packed, b);
+            packed = PackedTiles.set(PackedTiles.set(other.packed, a, tb), b, ta);
+            wide = null;
+        } else {
+            packed = 0;
+            wide = other.wide.clone();
+            int ta = PackedTiles.get(wide, a);
+            PackedTiles.set(wide, a, PackedTiles.get(wide, b));
+            PackedTiles.set(wide, b, ta);
+        }
+
+        if (vacancy == other.vacancy) {     // twin: two blocks swapped
+            hamming = getHamming();
+            manhattan = getManhattan();
+            estimate = heuristic == null ? manhattan : heuristic.estimate(this);
+            state = heuristic == null ? 0 : heuristic.state(this);
+        } else {                            // slide: block at vacancy came from other.vacancy
+            int block = tileAt(other.vacancy);
+            hamming = other.hamming + misplaced(block, other.vacancy) - misplaced(block, vacancy);
+            manhattan = other.manhattan + distance(block, other.vacancy) - distance(block, vacancy);
+            estimate = heuristic == null ? manhattan : heuristic.update(other, other.estimate, other.state, vacancy, other.vacancy);
+            state = heuristic == null ? 0 : heuristic.next(other, other.state, vacancy, other.vacancy);
+        }
+    }
+    @Override
     public int dimension()                 // board dimension n
     {
         return n;
@@ -40,6 +131,22 @@ public class Board {
     {
         return manhattan;
     }
+    public int estimate()                  // the heuristic's estimate, manhattan() if none was given
+    {
+        return estimate;
+    }
+    @Override
+    public int tileAt(int i)               // block at index i (row-major), 0 for the blank
+    {
+        if (wide == null)   return PackedTiles.get(packed, i);
+        return PackedTiles.get(wide, i);
+    }
+    @Override
+    public int indexOf(int block)          // index of block, -1 if it is not on the board
+    {
+        if (wide == null)   return PackedTiles.indexOf(packed, block);
+        return PackedTiles.indexOf(wide, block);
+    }
     public boolean isGoal()                // is this board the goal board?
     {
         return manhattan() == 0;
@@ -48,13 +155,10 @@ public class Board {
     {
         int p1 = 0;
         int p2 = n * n - 1;
-        if (blockz[p1] == '0') p1++;
-        if (blockz[p2] == '0') p2--;
+        if (tileAt(p1) == 0) p1++;
+        if (tileAt(p2) == 0) p2--;
 
-        exch(p1, p2);       // swap entry by indexes
-        Board twin = new Board(getArray(blockz));
-        exch(p2, p1);   // swap back for another use    
-        return twin;
+        return new Board(this, p1, p2);       // swap entry by indexes
     }
     public boolean equals(Object y)        // does this board equal y?
     {
@@ -63,7 +167,12 @@ public class Board {
         if (y.getClass() != this.getClass())    return false;
 
         Board b = (Board) y;
-        return isArrayEqual(this.blockz, b.blockz);
+        return n == b.n && packed == b.packed && Arrays.equals(wide, b.wide);
+    }
+    public int hashCode()
+    {
+        if (wide == null)   return PackedTiles.hash(packed);
+        return Arrays.hashCode(wide);
     }
     public Iterable<Board> neighbors()     // all neighboring boards
     {
@@ -78,7 +187,7 @@ public class Board {
         s.append(n + "\n");
         int len = n * n;
         for (int i = 0; i < len; i++) {
-            s.append(String.format("%2d ", blockz[i] - TRANS));
+            s.append(String.format("%2d ", tileAt(i)));
             if ((i + 1) % n == 0)   s.append("\n");
         }
         return s.toString();
@@ -95,9 +204,10 @@ public class Board {
             throw new IllegalArgumentException();
 
         int len = blocks.length;
+        if (len > PackedTiles.MAX_N)    throw new IllegalArgumentException();
         for (int i = 0; i < len; i++) {
             for (int j = 0; j < len; j++) {
-                if (blocks[i][j] < 0)   throw new IllegalArgumentException();
+                if (blocks[i][j] < 0 || blocks[i][j] >= len * len)   throw new IllegalArgumentException();
                 else if (blocks[i][j] == 0) {
                     vacant = i * len + j;
                 }   
@@ -109,14 +219,15 @@ public class Board {
     }
     private int getManhattan() {
         int mManhattan  = 0;
-        int len = blockz.length;
+        int len = n * n;
         for (int i = 0; i < len; i++) {
-            if ((blockz[i] != '0') && (blockz[i] != (char) (i  + 1 + TRANS))) {
+            int block = tileAt(i);
+            if ((block != 0) && (block != i + 1)) {
 
                 // e.g.: 8 is in index 1 -->(0, 1) : first row, second column  
                 // 8 - 1 = 7, x = 7 / 3 - 0 = 2, y = 7 % 3 - 1 = 0
                 // so manhattan distance of 7 is 2 + 0 = 2
-                int node = blockz[i] - TRANS - 1;
+                int node = block - 1;
                 int x = node / n - i / n;        
                 int y = node % n - i % n;
 
@@ -128,96 +239,51 @@ public class Board {
         }
         return mManhattan;
     }
+    private int misplaced(int block, int i) {
+        return block == i + 1 ? 0 : 1;
+    }
+    private int distance(int block, int i) {   // manhattan distance of block when it sits at index i
+        int node = block - 1;
+        int x = node / n - i / n;
+        int y = node % n - i % n;
+        return (x > 0 ? x : -x) + (y > 0 ? y : -y);
+    }
     private int getHamming() {
         int mHamming = 0;
-        int len = blockz.length;
+        int len = n * n;
         for (int i = 0; i < len; i++) {
-            if ((blockz[i] != '0') && (blockz[i] != (char) (i  + 1 + TRANS))) {
-                //                System.out.println("hamming " + blockz[i] + " : " + (char) (i  + 1 + TRANS));
+            int block = tileAt(i);
+            if ((block != 0) && (block != i + 1)) {
                 mHamming++;
             } 
         }
         return mHamming;
     }
-    private boolean isArrayEqual(char[] c1, char[] c2) {
-        if (c1 == null || c2 == null || c1.length != c2.length) return false;
-        int len = c1.length;
-        for (int i = 0; i < len; i++) {
-            if (c1[i] - c2[i] != 0)     return false;
-        }
-        return true;
-    }
     private Queue<Board> generateNeighbors() {
         Queue<Board> mNeighbors = new Queue<>();
         int x = vacancy / n;    // axis of vacancy block, like n = 3, 5 --> (1, 2)
         int y = vacancy % n;
 
-        if (x != 0) {      
-            exch(vacancy, vacancy - n);   
-            mNeighbors.enqueue(new Board(getArray(blockz)));
-            exch(vacancy - n, vacancy);   
-        }
-        if (x != n - 1) {       
-            exch(vacancy, vacancy + n);       // swap entry in vacancy and its upper
-            mNeighbors.enqueue(new Board(getArray(blockz)));
-            exch(vacancy + n, vacancy);   // swap back for another use    
-        }
-        if (y != 0) {       
-            exch(vacancy, vacancy - 1);       
-            mNeighbors.enqueue(new Board(getArray(blockz)));
-            exch(vacancy - 1, vacancy);   
-        }
-        if (y != n - 1) {
-            exch(vacancy, vacancy + 1);   
-            mNeighbors.enqueue(new Board(getArray(blockz)));
-            exch(vacancy + 1, vacancy);   
-        }
+        if (x != 0)         mNeighbors.enqueue(new Board(this, vacancy, vacancy - n));
+        if (x != n - 1)     mNeighbors.enqueue(new Board(this, vacancy, vacancy + n));  // swap entry in vacancy and its lower
+        if (y != 0)         mNeighbors.enqueue(new Board(this, vacancy, vacancy - 1));
+        if (y != n - 1)     mNeighbors.enqueue(new Board(this, vacancy, vacancy + 1));
         return mNeighbors;   
     }
-    private int[][] getArray(char[] mBlockz) {
-        int[][] blocks = new int[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                blocks[i][j] =  mBlockz[i * n + j] - TRANS;
-            }
-        }
-        return blocks;
-    }
-    private void exch(int a, int b) {
-        char t = blockz[a];
-        blockz[a] = blockz[b];
-        blockz[b] = t;
-    }
-    private char[] copy(int[][] blocks) {
-        char[] copy = new char[n * n];
-        int len = blocks.length;
-        for (int i = 0; i < len; i++) {
-            for (int j = 0; j < len; j++) {
-                copy[i * len + j] = (char) (blocks[i][j] + TRANS);
-            }
-        }
-        return copy;
-    }
-    public static void main(String[] args) // unit tests (not graded)
+    public static void main(String[] args) throws IOException // unit tests (not graded)
     {
-        In in = new In(args[0]);
-        int n = in.readInt();
-        int[][] blocks = new int[n][n];
-
-        for (int i = 0; i < blocks.length; i++) {
-            for (int j = 0; j < blocks[0].length; j++) {
-                blocks[i][j] = in.readInt();
-            }
-        }
-        Board board = new Board(blocks);
+        BoardReader in = new BoardReader(Paths.get(args[0]));
+        if (!in.next())     throw new IOException(args[0] + " holds no board");
+        in.close();
+        int n = in.dimension();
+        Board board = new Board(in);
         System.out.println(board);
         /* ***********test validate()***************** */
         //        System.out.println("board.vacancy: " + board.vacancy);  
-        /* ***********test copy()***************** */
-        //        char[] blockz = board.blockz;
-        //        System.out.print("char array: ");
-        //        for (int i = 0; i < blockz.length; i++) {
-        //            System.out.print(blockz[i] + " ");
+        /* ***********test tileAt()***************** */
+        //        System.out.print("packed blocks: ");
+        //        for (int i = 0; i < n * n; i++) {
+        //            System.out.print(board.tileAt(i) + " ");
         //        }
         //        System.out.println();
         //        /* ***********test hamming()***************** */
@@ -226,8 +292,8 @@ public class Board {
         //        System.out.println("manhattan :銆�" + board.manhattan());
         /* ***********test toString()***************** */
         //                System.out.println(board.toString());
-        /* ***********test isArrayEqual()******************/
-        //        System.out.println("isArrayEqual : " + board.isArrayEqual(board.blockz, board.blockz));
+        /* ***********test equals()******************/
+        //        System.out.println("equals : " + board.equals(new Board(blocks)));
         /* ***********test neighbor()***************** */
         //        Iterable<Board> it = board.neighbors();
         //        System.out.println("neighbors: ");
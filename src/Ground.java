@@ -16,75 +16,42 @@
  *
  ******************************************************************************/
 
-import java.awt.Font;
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
 
-import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
+import my.puzzle.controller.TileRenderer;
+import my.puzzle.model.BoardReader;
 
 public class Ground {
 
     // delay in miliseconds (controls animation speed)
     private static final int DELAY = 100;
 
-    // draw n-by-n percolation system
-    public static void draw(Board board, int n) {
-        StdDraw.clear();
-        StdDraw.setPenColor(StdDraw.BLACK);
-        StdDraw.setXscale(-0.05*n, 1.05*n);
-        StdDraw.setYscale(-0.05*n, 1.05*n);   // leave a border to write text
-        StdDraw.filledSquare(n/2.0, n/2.0, n/2.0);
-
-        // draw n-by-n grid
-        int opened = 0;
-        for (int row = 1; row <= n; row++) {
-            for (int col = 1; col <= n; col++) {
-                int num = board.blockz[(row - 1) * n + (col - 1)] - 48;
-                if (num == 0)   StdDraw.setPenColor(StdDraw.BLACK);
-                else            StdDraw.setPenColor(StdDraw.WHITE);
-                
-                StdDraw.filledSquare(col - 0.5, n - row + 0.5, 0.48);
-                StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 60));
-                StdDraw.setPenColor(StdDraw.BLACK);
-                StdDraw.text(col - 0.5, n - row + 0.5, num +"");
-                System.out.println(String.format("(%d, %d) --> %d", row, col, num));
-            }
-        }
-
-        // write status text
-        StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
-        StdDraw.setPenColor(StdDraw.BLACK);
-        StdDraw.text(0.25*n, -0.025*n, opened + " open sites");
-//        if (perc.percolates()) StdDraw.text(0.75*n, -0.025*n, "percolates");
-//        else                   StdDraw.text(0.75*n, -0.025*n, "does not percolate");
+    private static final TileRenderer RENDERER = new TileRenderer(StdDraw.BLACK, StdDraw.WHITE, StdDraw.BLACK);
 
+    // draw n-by-n board, repainting only the tiles that moved since the last call
+    public static void draw(Board board, int n) {
+        if (board.dimension() != n)     throw new IllegalArgumentException("board is not " + n + "-by-" + n);
+        RENDERER.draw(board);
     }
     public void move() {
         
     }
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
         // turn on animation mode
         StdDraw.enableDoubleBuffering();
 
-        In in = new In(args[0]);    // input file
-        int n = in.readInt();
-        int[][] blocks = new int[n][n];
-
-        for (int i = 0; i < blocks.length; i++) {
-            for (int j = 0; j < blocks[0].length; j++) {
-                blocks[i][j] = in.readInt();
-            }
-        }
-        Board board = new Board(blocks);
+        BoardReader in = new BoardReader(Paths.get(args[0]));    // input file
+        if (!in.next())     throw new IOException(args[0] + " holds no board");
+        in.close();
+        int n = in.dimension();
+        Board board = new Board(in);
         draw(board, n);
         StdDraw.show();
-        
-        while (true) {
-            if (StdDraw.isKeyPressed(0x25)) {
-                
-            }
-        }
+        // nothing to do until the window is closed, which ends the JVM; the
+        // Swing thread keeps it alive meanwhile, without a loop burning a core
     }
     /**
      * Constant for the non-numpad <b>left</b> arrow key.
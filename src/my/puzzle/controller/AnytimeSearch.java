@@ -0,0 +1,257 @@
+package my.puzzle.controller;
+
+import java.util.Arrays;
+
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.model.Grid;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * anytime repairing A* (ARA*): a solution within a factor of the optimum
+ * quickly, then better ones for as long as the caller keeps asking.
+ *
+ * each round is a weighted A* with f = moves + (int) (weight * h), which
+ * finds a solution at most weight times the optimal length. the next round
+ * lowers the weight by SolverOptions.getWeightStep and goes on with the
+ * same nodes: boards still on the open list are requeued under the new
+ * weight, and boards reached more cheaply after they had been expanded in
+ * this round wait on an inconsistent list instead of being expanded twice,
+ * then join the open list for the next round. nothing found so far is
+ * searched again.
+ *
+ * after every round bound() is proven: the solution is at most bound()
+ * times the optimal length, since no board left to expand can lead to a
+ * path shorter than moves() / bound(). the search is over, and the
+ * solution optimal, once a round at weight 1 ends or nothing is left.
+ *
+ *   AnytimeSearch search = new AnytimeSearch(board, new SolverOptions().setWeight(3));
+ *   while (search.improve() && !outOfTime()) { }
+ *   play(search.keys());
+ */
+public class AnytimeSearch {
+
+    private final NodeArena nodes;
+
+    private final StateTable best;          // the cheapest node of each board
+
+    private BucketQueue open = new BucketQueue();
+
+    private int[] inconsistent = new int[16];   // reached more cheaply after this round expanded them
+    private int inconsistentSize = 0;
+
+    private int[] closedIn = new int[1 << 10];  // round that expanded each node id, 0 if none
+
+    private final Heuristic heuristic;
+
+    private final double step;
+
+    private double weight;
+
+    private int round = 0;
+
+    private int goal = -1;                  // node of the best solution, -1 before the first
+
+    private double bound = Double.POSITIVE_INFINITY;
+
+    private boolean optimal = false;
+
+    private int expansions = 0;
+
+    private int duplicates = 0;
+
+    private long generated = 0;
+
+    private int peakOpen = 0;
+
+    private final Budget budget;            // checked at every expansion, null when the caller keeps time
+
+    /**
+     * search with the heuristic, weight and weight step of options; the
+     * caller decides when to stop asking for rounds, so the budgets of
+     * options are not used here
+     */
+    public AnytimeSearch(PuzzleBoard initial, SolverOptions options) {
+        this(initial, options.getHeuristic(), options.getWeight(), options.getWeightStep(), null);
+    }
+
+    AnytimeSearch(PuzzleBoard initial, Heuristic heuristic, double weight, double step, Budget budget) {
+        if (initial == null || heuristic == null)   throw new IllegalArgumentException();
+        if (!initial.isSolvable())  throw new IllegalArgumentException("board is not solvable");
+        this.budget = budget;
+        this.heuristic = heuristic;
+        this.weight = weight;
+        this.step = step;
+        nodes = new NodeArena(initial.dimension());
+        best = new NodeTable(nodes);
+
+        int root = nodes.root(initial, heuristic.estimate(initial), heuristic.state(initial));
+        best.put(root);
+        queue(root);
+    }
+
+    /**
+     * run the next round, starting at the weight given in SolverOptions
+     *
+     * @return false, doing nothing, once the solution is proven optimal
+     */
+    public boolean improve() {
+        if (optimal)    return false;
+        if (round > 0) {        // lower the weight, and requeue everything under it
+            weight = Math.max(1, Math.min(weight - step, bound));
+            int[] queued = open.toArray();
+            open = new BucketQueue();
+            for (int id : queued) {
+                if (best.get(id) == id)     queue(id);
+            }
+            for (int i = 0; i < inconsistentSize; i++) {
+                int id = inconsistent[i];
+                if (best.get(id) == id)     queue(id);
+            }
+            inconsistentSize = 0;
+        }
+        round++;
+
+        int limit = goal == -1 ? Integer.MAX_VALUE : nodes.moves(goal);
+        while (open.minKey() < limit) {
+            int min = open.delMin();
+            if (best.get(min) != min || closedIn(min) == round) {    // reached more cheaply, or already expanded
+                duplicates++;
+                continue;
+            }
+            if (nodes.isGoal(min)) {
+                goal = min;
+                limit = nodes.moves(min);
+                continue;
+            }
+            expand(min);
+            if (budget != null)     budget.check(expansions, moves());
+        }
+
+        bound = provenBound();
+        optimal = bound <= 1 || weight <= 1;
+        if (optimal)    bound = 1;
+        return true;
+    }
+
+    /**
+     * whether the current solution is proven shortest
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * length of the best solution so far, -1 before the first round
+     */
+    public int moves() {
+        return goal == -1 ? -1 : nodes.moves(goal);
+    }
+
+    /**
+     * keys of the best solution so far, null before the first round
+     */
+    public int[] keys() {
+        return goal == -1 ? null : nodes.path(goal);
+    }
+
+    /**
+     * proven ratio of moves() to the optimal length, at least 1
+     */
+    public double bound() {
+        return bound;
+    }
+
+    /**
+     * weight of the last round
+     */
+    public double weight() {
+        return weight;
+    }
+
+    public int expansions() {
+        return expansions;
+    }
+
+    public int duplicates() {
+        return duplicates;
+    }
+
+    public long generated() {
+        return generated;
+    }
+
+    public int peakOpen() {
+        return peakOpen;
+    }
+
+    public long storedNodes() {
+        return best.size();
+    }
+
+    /* ************************ private methods **************************************** */
+    private void expand(int min) {
+        expansions++;
+        markClosed(min);
+        Grid board = nodes.view(min);
+        int h = nodes.estimate(min);
+        long state = nodes.heuristicState(min);
+        int vacancy = nodes.vacancy(min);
+        int father = nodes.parent(min);
+        int back = father == -1 ? -1 : nodes.vacancy(father);
+        PuzzleBoard.forEachMove(nodes.dimension(), vacancy, (key, from) -> {
+            if (from == back) {         // undoes the last move, the father is already known
+                duplicates++;
+                return;
+            }
+            int childH = heuristic.update(board, h, state, from, vacancy);
+            int child = nodes.child(min, key, from, childH, heuristic.next(board, state, from, vacancy));
+            generated++;
+            int known = best.get(child);
+            if (known != -1 && nodes.moves(known) <= nodes.moves(child)) {     // dominated
+                duplicates++;
+                nodes.removeLast();
+                return;
+            }
+            best.put(child);
+            if (known != -1 && closedIn(known) == round)    addInconsistent(child);
+            else                                            queue(child);
+        });
+        if (open.size() > peakOpen)     peakOpen = open.size();
+    }
+
+    private void queue(int id) {
+        int h = (int) (weight * nodes.estimate(id));
+        open.insert(id, nodes.moves(id) + h, h);
+    }
+
+    /**
+     * moves() over the smallest moves + h of any board left to expand; every
+     * path not yet found runs through one of them
+     */
+    private double provenBound() {
+        int lower = Integer.MAX_VALUE;
+        for (int id : open.toArray()) {
+            if (best.get(id) == id && closedIn(id) != round)    lower = Math.min(lower, nodes.moves(id) + nodes.estimate(id));
+        }
+        for (int i = 0; i < inconsistentSize; i++) {
+            int id = inconsistent[i];
+            if (best.get(id) == id)     lower = Math.min(lower, nodes.moves(id) + nodes.estimate(id));
+        }
+        if (lower >= nodes.moves(goal))     return 1;
+        return Math.min(weight, (double) nodes.moves(goal) / lower);
+    }
+
+    private int closedIn(int id) {
+        return id < closedIn.length ? closedIn[id] : 0;
+    }
+
+    private void markClosed(int id) {
+        if (id >= closedIn.length)  closedIn = Arrays.copyOf(closedIn, Math.max(id + 1, closedIn.length * 2));
+        closedIn[id] = round;
+    }
+
+    private void addInconsistent(int id) {
+        if (inconsistentSize == inconsistent.length)    inconsistent = Arrays.copyOf(inconsistent, inconsistentSize * 2);
+        inconsistent[inconsistentSize++] = id;
+    }
+}
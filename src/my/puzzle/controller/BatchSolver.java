@@ -0,0 +1,276 @@
+package my.puzzle.controller;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.heuristic.ManhattanHeuristic;
+import my.puzzle.heuristic.PatternDatabase;
+import my.puzzle.model.BoardReader;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * headless solver for many puzzle files in one JVM.
+ *
+ * every file is a task on a work-stealing pool sized to the machine, and a
+ * result line is printed as soon as its task finishes, so long 4-by-4
+ * solves never hold back the lines of quick 2-by-2 ones:
+ *
+ *   java my.puzzle.controller.BatchSolver [--threads k] [--mode IDASTAR]
+ *        [--search-threads k] [--pdb file] [--table file] [--cache boards]
+ *        [--symmetric] [--weight w] [--time-limit ms] [--node-limit n]
+ *        [--csv out.csv] dir-or-glob ...
+ *
+ * a directory means every *.txt file in it, anything else is a file name
+ * or a glob such as src/puzzle3x3-*.txt. for one hard board use
+ * --threads 1 --mode PARALLEL, so the threads go into the search instead.
+ * --symmetric merges mirrored boards in the A* closed set and makes the
+ * pattern database take reflected lookups too. --weight above 1 trades
+ * optimality for speed in ASTAR and sets where ANYTIME starts.
+ * --time-limit and --node-limit bound each board's search; a board that
+ * runs past them gets a line "name,budget,BUDGET_EXCEEDED after k
+ * expansions" and the batch goes on.
+ */
+public class BatchSolver {
+
+    private static final String HEADER = "file,n,moves,expansions,ms,peak";
+
+    private final Solver.Mode mode;
+
+    private final PatternDatabase pdb;      // used for boards of its dimension, may be null
+
+    private final int searchThreads;        // threads inside each solve, Mode.PARALLEL only
+
+    private EightPuzzleTable table;         // solves 3-by-3 boards when set
+
+    private SolutionCache cache;            // shared by all tasks when set
+
+    private boolean symmetric;              // see SolverOptions.setSymmetric
+
+    private double weight = 1;              // see SolverOptions.setWeight
+
+    private long timeBudget = 0;            // see SolverOptions.setTimeBudget
+
+    private long nodeBudget = 0;            // see SolverOptions.setNodeBudget
+
+    public BatchSolver(Solver.Mode mode, PatternDatabase pdb) {
+        this(mode, pdb, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchSolver(Solver.Mode mode, PatternDatabase pdb, int searchThreads) {
+        this.mode = mode;
+        this.pdb = pdb;
+        this.searchThreads = searchThreads;
+    }
+
+    /**
+     * solve 3-by-3 boards with lookups in table instead of searching
+     */
+    public void setEightPuzzleTable(EightPuzzleTable table) {
+        this.table = table;
+    }
+
+    /**
+     * look boards up in cache before solving them, and remember the results
+     */
+    public void setSolutionCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    public void setSymmetric(boolean symmetric) {
+        this.symmetric = symmetric;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * milliseconds each board may be searched, 0 for no limit
+     */
+    public void setTimeBudget(long millis) {
+        this.timeBudget = millis;
+    }
+
+    /**
+     * boards each search may expand, 0 for no limit
+     */
+    public void setNodeBudget(long nodes) {
+        this.nodeBudget = nodes;
+    }
+
+    /**
+     * solve every file on pool, writing one line per board to each of outs
+     * in the order the solves finish
+     */
+    public void run(List<Path> files, ForkJoinPool pool, PrintStream... outs) throws InterruptedException {
+        List<Path> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparingLong(BatchSolver::size));      // small boards first
+
+        CompletionService<Void> done = new ExecutorCompletionService<>(pool);
+        for (Path file : sorted) {
+            done.submit(() -> solve(file, outs), null);
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            try {
+                done.take().get();
+            } catch (ExecutionException e) {
+                print("error," + e.getCause(), outs);
+            }
+        }
+    }
+
+    /**
+     * solve the boards of file one after another as they are read, printing
+     * each line as its board is done; a file of several boards gives one
+     * line each, named file:1, file:2, ...
+     */
+    private void solve(Path file, PrintStream[] outs) {
+        try (BoardReader in = new BoardReader(file)) {
+            if (!in.next()) {
+                print(String.format("%s,error,no board", file), outs);
+                return;
+            }
+            int k = 0;
+            boolean more;
+            do {
+                k++;
+                long start = System.nanoTime();
+                PuzzleBoard board = in.board();
+                Solver solver = solve(board);
+                long ms = (System.nanoTime() - start) / 1000000;
+                more = in.next();       // read ahead, so a lone board is named by its file alone
+
+                String name = k == 1 && !more ? file.toString() : file + ":" + k;
+                if (solver.isSolvable() || solver.status() == Solver.Status.UNSOLVABLE) {
+                    print(String.format("%s,%d,%d,%d,%d,%d", name, board.dimension(), solver.moves(),
+                            solver.expansions(), ms, solver.peakNodes()), outs);
+                } else {            // stopped with nothing to show
+                    print(String.format("%s,budget,%s after %d expansions", name, solver.status(), solver.expansions()), outs);
+                }
+            } while (more);
+        } catch (IOException | RuntimeException e) {      // a bad file must not stop the batch
+            print(String.format("%s,error,%s", file, e), outs);
+        }
+    }
+
+    private Solver solve(PuzzleBoard board) {
+        Heuristic heuristic = new ManhattanHeuristic();
+        if (pdb != null && pdb.dimension() == board.dimension())     heuristic = pdb;
+
+        return new Solver(board, new SolverOptions()
+                .setMode(mode).setHeuristic(heuristic).setThreads(searchThreads).setEightPuzzleTable(table).setSolutionCache(cache)
+                .setSymmetric(symmetric).setWeight(weight).setTimeBudget(timeBudget).setNodeBudget(nodeBudget));
+    }
+
+    private synchronized void print(String line, PrintStream[] outs) {
+        for (PrintStream out : outs) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * files named by a directory, a plain path or a glob
+     */
+    static List<Path> expand(String arg) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Path path = Paths.get(arg);
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> dir = Files.newDirectoryStream(path, "*.txt")) {
+                for (Path p : dir)  files.add(p);
+            }
+        } else if (Files.exists(path)) {
+            files.add(path);
+        } else {                        // glob on the file name part
+            Path parent = path.getParent() == null ? Paths.get(".") : path.getParent();
+            try (DirectoryStream<Path> dir = Files.newDirectoryStream(parent, path.getFileName().toString())) {
+                for (Path p : dir)  files.add(p);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int searchThreads = threads;
+        Solver.Mode mode = Solver.Mode.ASTAR;
+        PatternDatabase pdb = null;
+        EightPuzzleTable table = null;
+        SolutionCache cache = null;
+        boolean symmetric = false;
+        double weight = 1;
+        long timeBudget = 0;
+        long nodeBudget = 0;
+        PrintStream csv = null;
+        List<Path> files = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "--threads":   threads = Integer.parseInt(args[++i]);              break;
+            case "--mode":      mode = Solver.Mode.valueOf(args[++i]);               break;
+            case "--search-threads":    searchThreads = Integer.parseInt(args[++i]);    break;
+            case "--pdb":       pdb = PatternDatabase.load(new File(args[++i]));     break;
+            case "--table":     table = EightPuzzleTable.load(new File(args[++i]));  break;
+            case "--cache":     cache = new SolutionCache(Integer.parseInt(args[++i]), true);   break;
+            case "--symmetric": symmetric = true;                                    break;
+            case "--weight":    weight = Double.parseDouble(args[++i]);              break;
+            case "--time-limit":    timeBudget = Long.parseLong(args[++i]);         break;
+            case "--node-limit":    nodeBudget = Long.parseLong(args[++i]);         break;
+            case "--csv":       csv = csv(args[++i]);                                break;
+            default:            files.addAll(expand(args[i]));                       break;
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("usage: BatchSolver [--threads k] [--mode ASTAR|IDASTAR|PARALLEL|BIDIRECTIONAL|ANYTIME] [--search-threads k] [--pdb file] [--table file] [--cache boards] [--symmetric] [--weight w] [--time-limit ms] [--node-limit n] [--csv out.csv] dir-or-glob ...");
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        System.out.println(HEADER);
+        if (symmetric && pdb != null)   pdb = pdb.reflected();
+        BatchSolver batch = new BatchSolver(mode, pdb, searchThreads);
+        batch.setEightPuzzleTable(table);
+        batch.setSolutionCache(cache);
+        batch.setSymmetric(symmetric);
+        batch.setWeight(weight);
+        batch.setTimeBudget(timeBudget);
+        batch.setNodeBudget(nodeBudget);
+        if (csv == null) {
+            batch.run(files, pool, System.out);
+        } else {
+            batch.run(files, pool, System.out, csv);
+            csv.close();
+        }
+        pool.shutdown();
+    }
+
+    private static PrintStream csv(String name) throws FileNotFoundException {
+        PrintStream csv = new PrintStream(name);
+        csv.println(HEADER);
+        return csv;
+    }
+}
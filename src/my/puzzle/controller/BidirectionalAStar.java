@@ -0,0 +1,183 @@
+package my.puzzle.controller;
+
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.heuristic.ManhattanHeuristic;
+import my.puzzle.model.Grid;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * front-to-end bidirectional A*.
+ *
+ * one search runs forward from the initial board, guided by the given
+ * heuristic, and one runs backward from the goal, guided by Manhattan
+ * distance to the initial board. both keep their nodes in one arena, so a
+ * board generated by one side is looked up in the other side's closed set
+ * directly; each hit is a complete path, and the shortest one seen is kept.
+ * the side with the smaller open list is expanded next, and the search
+ * stops once no open node on either side can beat the best path found.
+ */
+class BidirectionalAStar {
+
+    private final NodeArena nodes;
+
+    private final Side forward;
+
+    private final Side backward;
+
+    private int best = Integer.MAX_VALUE;   // length of the shortest path found so far
+
+    private int meetForward = -1;           // the two nodes it joins
+    private int meetBackward = -1;
+
+    private int expansions = 0;
+
+    private int duplicates = 0;
+
+    private long generated = 0;
+
+    private int peakOpen = 0;               // both open lists together
+
+    private final Budget budget;            // checked at every expansion
+
+    BidirectionalAStar(PuzzleBoard initial, Heuristic heuristic, Budget budget) {
+        this.budget = budget;
+        nodes = new NodeArena(initial.dimension());
+        forward = new Side(heuristic);
+        backward = new Side(new ManhattanHeuristic(initial));
+        forward.other = backward;
+        backward.other = forward;
+    }
+
+    /**
+     * keys of a shortest solution, the initial board must be solvable
+     */
+    int[] solve(PuzzleBoard initial) {
+        forward.start(initial);
+        backward.start(goal(initial.dimension()));
+
+        int bound;
+        while (best > (bound = Math.max(forward.open.minKey(), backward.open.minKey()))) {
+            Side side = forward.open.size() <= backward.open.size() ? forward : backward;
+            if (side.open.isEmpty())    side = side.other;
+            side.expandNext();
+            peakOpen = Math.max(peakOpen, forward.open.size() + backward.open.size());
+            budget.check(expansions, bound);
+        }
+
+        int[] head = nodes.path(meetForward);       // initial to the meeting board
+        int[] tail = nodes.path(meetBackward);      // goal to the meeting board
+        int[] keys = new int[head.length + tail.length];
+        System.arraycopy(head, 0, keys, 0, head.length);
+        for (int i = 0; i < tail.length; i++) {     // walk the backward half in reverse
+            keys[head.length + i] = PuzzleBoard.opposite(tail[tail.length - 1 - i]);
+        }
+        return keys;
+    }
+
+    int expansions() {
+        return expansions;
+    }
+
+    int duplicates() {
+        return duplicates;
+    }
+
+    int storedNodes() {
+        return nodes.size();
+    }
+
+    long generated() {
+        return generated;
+    }
+
+    int peakOpen() {
+        return peakOpen;
+    }
+
+    /* ************************ private methods **************************************** */
+    private static PuzzleBoard goal(int n) {
+        int[][] blocks = new int[n][n];
+        for (int i = 0; i < n * n - 1; i++) {
+            blocks[i / n][i % n] = i + 1;
+        }
+        return new PuzzleBoard(blocks);
+    }
+
+    private class Side {
+        final Heuristic heuristic;
+        final NodeTable closed = new NodeTable(nodes);
+        final BucketQueue open = new BucketQueue();
+        Side other;
+
+        Side(Heuristic heuristic) {
+            this.heuristic = heuristic;
+        }
+
+        void start(Grid board) {
+            accept(nodes.root(board, heuristic.estimate(board), heuristic.state(board)));
+        }
+
+        void expandNext() {
+            int min = pollBest();
+            if (min != -1)  expand(min);
+        }
+
+        /**
+         * take the smallest live entry off the queue, -1 if only entries
+         * reached more cheaply since they were queued were left
+         */
+        private int pollBest() {
+            while (!open.isEmpty()) {
+                int id = open.delMin();
+                if (closed.get(id) == id)   return id;
+                duplicates++;
+            }
+            return -1;
+        }
+
+        private void expand(int min) {
+            expansions++;
+
+            Grid board = nodes.view(min);
+            int h = nodes.estimate(min);
+            long state = nodes.heuristicState(min);
+            int vacancy = nodes.vacancy(min);
+            int father = nodes.parent(min);
+            int back = father == -1 ? -1 : nodes.vacancy(father);
+            int childMoves = nodes.moves(min) + 1;
+            PuzzleBoard.forEachMove(nodes.dimension(), vacancy, (key, from) -> {
+                if (from == back) {
+                    duplicates++;
+                    return;
+                }
+                int childH = heuristic.update(board, h, state, from, vacancy);
+                if (childMoves + childH >= best)    return;     // no path through it beats the best
+
+                int child = nodes.child(min, key, from, childH, heuristic.next(board, state, from, vacancy));
+                generated++;
+                int known = closed.get(child);
+                if (known != -1 && nodes.moves(known) <= childMoves) {
+                    duplicates++;
+                    nodes.removeLast();
+                    return;
+                }
+                accept(child);
+            });
+        }
+
+        /**
+         * add id to this side, and keep the path if the other side has
+         * reached the same board
+         */
+        private void accept(int id) {
+            closed.put(id);
+            open.insert(id, nodes.moves(id) + nodes.estimate(id), nodes.estimate(id));
+
+            int met = other.closed.get(id);
+            if (met == -1 || nodes.moves(id) + nodes.moves(met) >= best)     return;
+            best = nodes.moves(id) + nodes.moves(met);
+            meetForward = this == forward ? id : met;
+            meetBackward = this == forward ? met : id;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package my.puzzle.controller;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * open list of int node ids for A*, keyed by small integer f = moves + h.
+ *
+ * there is one bucket per f and, inside it, one stack per h. delMin takes
+ * from the lowest f, then the lowest h (the node closest to the goal), and
+ * the most recently inserted node among equals. f never drops below the
+ * last one taken when the heuristic is consistent, so the cursor only moves
+ * up and insert and delMin are amortized O(1); a smaller f is still
+ * accepted and simply moves the cursor back.
+ */
+class BucketQueue {
+
+    private int[][][] stacks = new int[0][][];    // stacks[f][h], ids in insertion order
+    private int[][] sizes = new int[0][];         // sizes[f][h]
+    private int[] counts = new int[0];            // entries with each f
+    private int[] minH = new int[0];              // no entry of f has a smaller h
+
+    private int size = 0;
+    private int minF = 0;
+
+    /**
+     * @param h estimate of the node, 0 <= h <= f
+     */
+    void insert(int id, int f, int h) {
+        if (h < 0 || h > f)     throw new IllegalArgumentException("need 0 <= h <= f");
+        if (f >= counts.length)     grow(f);
+        if (sizes[f] == null) {
+            sizes[f] = new int[f + 1];
+            stacks[f] = new int[f + 1][];
+            minH[f] = f;
+        }
+        int[] stack = stacks[f][h];
+        int k = sizes[f][h];
+        if (stack == null)              stack = stacks[f][h] = new int[16];
+        else if (k == stack.length)     stack = stacks[f][h] = Arrays.copyOf(stack, k * 2);
+        stack[k] = id;
+        sizes[f][h] = k + 1;
+
+        counts[f]++;
+        if (h < minH[f])    minH[f] = h;
+        if (f < minF)       minF = f;
+        size++;
+    }
+
+    /**
+     * remove and return an id with the smallest f
+     */
+    int delMin() {
+        if (size == 0)  throw new NoSuchElementException("Priority queue underflow");
+        while (counts[minF] == 0)   minF++;
+        int f = minF;
+        int h = minH[f];
+        while (sizes[f][h] == 0)    h++;
+        minH[f] = h;
+
+        counts[f]--;
+        size--;
+        return stacks[f][h][--sizes[f][h]];
+    }
+
+    /**
+     * smallest f in the queue, Integer.MAX_VALUE when it is empty
+     */
+    int minKey() {
+        if (size == 0)  return Integer.MAX_VALUE;
+        while (counts[minF] == 0)   minF++;
+        return minF;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * every queued id, in no particular order
+     */
+    int[] toArray() {
+        int[] ids = new int[size];
+        int k = 0;
+        for (int f = 0; f < counts.length; f++) {
+            if (counts[f] == 0)     continue;
+            for (int h = 0; h <= f; h++) {
+                if (sizes[f][h] == 0)   continue;
+                System.arraycopy(stacks[f][h], 0, ids, k, sizes[f][h]);
+                k += sizes[f][h];
+            }
+        }
+        return ids;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /* ************************ private methods **************************************** */
+    private void grow(int f) {
+        int len = Math.max(f + 1, counts.length * 2);
+        stacks = Arrays.copyOf(stacks, len);
+        sizes = Arrays.copyOf(sizes, len);
+        counts = Arrays.copyOf(counts, len);
+        minH = Arrays.copyOf(minH, len);
+    }
+}
@@ -0,0 +1,91 @@
+package my.puzzle.controller;
+
+/**
+ * the limits one search runs under: the time and node budgets of
+ * SolverOptions, and a cancel flag set by SolveHandle.cancel or by
+ * interrupting the solving thread.
+ *
+ * the engines call check once per expansion. the node count is compared
+ * every time, the clock and the flags only every CHECK_EVERY expansions,
+ * so a search under no budget pays a mask and a compare per board. a
+ * search over budget or cancelled ends with a Stop, which Solver turns
+ * into its Status.
+ */
+class Budget {
+
+    private static final int CHECK_EVERY = 1 << 10;     // a power of two
+
+    private static final long REPORT_NANOS = 100_000_000;   // between progress callbacks
+
+    private final long nanos;           // 0 for no limit
+
+    private final long nodes;           // Long.MAX_VALUE for no limit
+
+    private final ProgressListener listener;
+
+    private volatile boolean cancelled = false;
+
+    private long start;
+
+    private long lastReport;
+
+    Budget(SolverOptions options) {
+        nanos = options.getTimeBudget() * 1_000_000;
+        nodes = options.getNodeBudget() == 0 ? Long.MAX_VALUE : options.getNodeBudget();
+        listener = options.getProgressListener();
+        start();
+    }
+
+    /**
+     * the time budget counts from here
+     */
+    void start() {
+        start = System.nanoTime();
+        lastReport = start;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * an engine has expanded expanded boards, working on bound
+     */
+    void check(long expanded, int bound) {
+        if ((expanded & (CHECK_EVERY - 1)) == 0 || expanded >= nodes)  poll(expanded, bound);
+    }
+
+    /**
+     * check now, whatever the count; for engines that count elsewhere
+     */
+    void poll(long expanded, int bound) {
+        if (cancelled || Thread.currentThread().isInterrupted())    throw new Stop(Solver.Status.CANCELLED);
+        if (expanded >= nodes)  throw new Stop(Solver.Status.BUDGET_EXCEEDED);
+        long now = System.nanoTime();
+        if (nanos > 0 && now - start >= nanos)  throw new Stop(Solver.Status.BUDGET_EXCEEDED);
+        if (listener != null && now - lastReport >= REPORT_NANOS) {
+            lastReport = now;
+            listener.progress(expanded, bound, (now - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * thrown out of an engine to end its search; carries no stack trace,
+     * since it is never a bug
+     */
+    static class Stop extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        final Solver.Status status;
+
+        Stop(Solver.Status status) {
+            super(status.name(), null, false, false);
+            this.status = status;
+        }
+    }
+}
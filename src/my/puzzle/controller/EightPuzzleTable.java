@@ -0,0 +1,202 @@
+package my.puzzle.controller;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import my.puzzle.model.Grid;
+import my.puzzle.model.PackedTiles;
+import my.puzzle.model.PermutationRank;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * the optimal distance of every solvable 3-by-3 board, so 3-by-3 boards
+ * are solved without searching.
+ *
+ * one breadth-first search from the goal visits all 181440 solvable boards.
+ * a board is stored under the Lehmer rank of its 9 cells (blank as 0), one
+ * nibble each, holding the distance mod 16. every move changes the
+ * distance by exactly one, so the neighbor whose nibble is one less (mod
+ * 16) is always one step closer, and following it reaches the goal along a
+ * shortest path. the file is
+ *
+ *   int magic, then 9! / 2 bytes of nibbles, rank r in the low nibble of
+ *   byte r / 2 when r is even and in the high nibble when it is odd
+ *
+ * and load maps it read-only.
+ */
+public class EightPuzzleTable {
+
+    private static final int MAGIC = 0x38505a31;     // "8PZ1"
+
+    private static final int N = 3;
+
+    private static final int CELLS = N * N;
+
+    private static final int RANKS = 362880;         // 9!
+
+    private static final int LONGEST = 31;           // moves of the hardest 3-by-3 board
+
+    private static final int[] KEYS = {
+        PuzzleBoard.VK_DOWN, PuzzleBoard.VK_UP, PuzzleBoard.VK_RIGHT, PuzzleBoard.VK_LEFT
+    };
+
+    private final ByteBuffer data;
+
+    private EightPuzzleTable(ByteBuffer data) {
+        if (data.remaining() < RANKS / 2)   throw new IllegalArgumentException("distance table is truncated");
+        this.data = data.slice();
+    }
+
+    /**
+     * run the breadth-first search and keep the table in memory
+     */
+    public static EightPuzzleTable build() {
+        byte[] nibbles = new byte[RANKS / 2];
+        boolean[] seen = new boolean[RANKS];
+        long[] queue = new long[RANKS / 2];
+        int head = 0;
+        int tail = 0;
+
+        long goal = goal();
+        seen[rank(goal)] = true;
+        queue[tail++] = goal;
+        int distance = 0;               // of the layer being expanded
+        for (int layerEnd = tail; head < tail; ) {
+            long board = queue[head++];
+            int vacancy = vacancy(board);
+            for (int key : KEYS) {
+                int from = source(vacancy, key);
+                if (from == -1)     continue;
+                long next = PackedTiles.slide(board, from, vacancy);
+                int r = rank(next);
+                if (seen[r])    continue;
+                seen[r] = true;
+                put(nibbles, r, distance + 1);
+                queue[tail++] = next;
+            }
+            if (head == layerEnd) {
+                distance++;
+                layerEnd = tail;
+            }
+        }
+        return new EightPuzzleTable(ByteBuffer.wrap(nibbles));
+    }
+
+    /**
+     * map a file written by write
+     */
+    public static EightPuzzleTable load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt() != MAGIC)     throw new IOException(file + " is not an 8-puzzle distance table");
+            return new EightPuzzleTable(data);
+        }
+    }
+
+    public void write(File file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            byte[] bytes = new byte[4 + RANKS / 2];
+            ByteBuffer.wrap(bytes).putInt(MAGIC);
+            for (int i = 0; i < RANKS / 2; i++) {
+                bytes[4 + i] = data.get(i);
+            }
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * keys of a shortest solution of a solvable 3-by-3 board
+     */
+    public int[] solve(Grid board) {
+        if (board.dimension() != N)     throw new IllegalArgumentException("the table is for 3-by-3 boards");
+        long packed = 0;
+        for (int i = 0; i < CELLS; i++) {
+            packed = PackedTiles.set(packed, i, board.tileAt(i));
+        }
+
+        long goal = goal();
+        int[] keys = new int[LONGEST];
+        int moves = 0;
+        int vacancy = vacancy(packed);
+        int d = get(rank(packed));
+        while (packed != goal) {
+            int closer = (d + 15) & 15;
+            int key = 0;
+            int from = -1;
+            for (int k : KEYS) {
+                from = source(vacancy, k);
+                if (from != -1 && get(rank(PackedTiles.slide(packed, from, vacancy))) == closer) {
+                    key = k;
+                    break;
+                }
+            }
+            if (key == 0 || moves == LONGEST)   throw new IllegalStateException("board is not solvable");
+            packed = PackedTiles.slide(packed, from, vacancy);
+            vacancy = from;
+            keys[moves++] = key;
+            d = closer;
+        }
+        return Arrays.copyOf(keys, moves);
+    }
+
+    /* ************************ private methods **************************************** */
+    private int get(int rank) {
+        return (data.get(rank >>> 1) >>> ((rank & 1) << 2)) & 0xF;
+    }
+
+    private static void put(byte[] nibbles, int rank, int distance) {
+        int shift = (rank & 1) << 2;
+        nibbles[rank >>> 1] |= (distance & 0xF) << shift;
+    }
+
+    private static long goal() {
+        long goal = 0;
+        for (int i = 0; i < CELLS - 1; i++) {
+            goal = PackedTiles.set(goal, i, i + 1);
+        }
+        return goal;
+    }
+
+    /**
+     * Lehmer rank of the 9 cells, blank as 0
+     */
+    private static int rank(long packed) {
+        return (int) PermutationRank.rank(packed, CELLS);
+    }
+
+    private static int vacancy(long packed) {
+        for (int i = 0; i < CELLS; i++) {
+            if (PackedTiles.get(packed, i) == 0)    return i;
+        }
+        throw new IllegalArgumentException("board has no blank");
+    }
+
+    /**
+     * index of the block key slides into the blank, -1 if there is none;
+     * the same rule as PuzzleBoard.source
+     */
+    private static int source(int vacancy, int key) {
+        int x = vacancy / N;
+        int y = vacancy % N;
+        switch (key) {
+        case PuzzleBoard.VK_LEFT:   return y != N - 1 ? vacancy + 1 : -1;
+        case PuzzleBoard.VK_RIGHT:  return y != 0 ? vacancy - 1 : -1;
+        case PuzzleBoard.VK_UP:     return x != N - 1 ? vacancy + N : -1;
+        case PuzzleBoard.VK_DOWN:   return x != 0 ? vacancy - N : -1;
+        default:                    return -1;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        long start = System.currentTimeMillis();
+        EightPuzzleTable table = build();
+        table.write(new File(args[0]));
+        System.out.println(String.format("wrote %s (%d bytes) in %d ms",
+                args[0], 4 + RANKS / 2, System.currentTimeMillis() - start));
+    }
+}
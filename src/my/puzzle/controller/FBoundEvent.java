@@ -0,0 +1,25 @@
+package my.puzzle.controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * a search moved on to a larger f-bound; see SearchMetrics
+ */
+@Name("my.puzzle.FBound")
+@Label("Puzzle F-Bound")
+@Category("My8Puzzle")
+@Description("A* or IDA* reached a larger f = moves + h")
+@StackTrace(false)
+class FBoundEvent extends jdk.jfr.Event {
+
+    @Label("Bound")
+    int bound;
+
+    @Label("Expanded")
+    @Description("Boards expanded before the bound was reached")
+    long expanded;
+}
@@ -20,17 +20,17 @@ import java.awt.Color;
  *
  ******************************************************************************/
 
-import java.awt.Font;
+import java.io.IOException;
 
-import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
+import my.puzzle.model.BoardReader;
 import my.puzzle.model.PuzzleBoard;
 import my.puzzle.state.GoalState;
 
 public class Game {
 
-    // delay in miliseconds (controls animation speed)
-    private static final int DELAY = 200;
+    // shortest time between frames in miliseconds, about 60 a second
+    private static final int FRAME_MILLIS = 16;
     
     
 //    private static final Color BLOCK = new Color(174, 221, 129);
@@ -47,83 +47,44 @@ public class Game {
     public static final int VK_RIGHT          = 0x27;
     public static final int VK_DOWN           = 0x28;
 
-    // draw n-by-n percolation system
-    public static void draw(PuzzleBoard board, int n) {
-        StdDraw.clear();
-        StdDraw.setPenColor(BLACKGROUND);
-        StdDraw.setXscale(-0.05*n, 1.05*n);
-        StdDraw.setYscale(-0.05*n, 1.05*n);   // leave a border to write text
-        StdDraw.filledSquare(n/2.0, n/2.0, n/2.0);
-
-        // draw n-by-n grid
-        for (int row = 1; row <= n; row++) {
-            for (int col = 1; col <= n; col++) {
-                int num = board.blockz[(row - 1) * n + (col - 1)] - 48;
-                if (num == 0)   StdDraw.setPenColor(BLACKGROUND);
-                else            StdDraw.setPenColor(BLOCK);
-
-                StdDraw.filledSquare(col - 0.5, n - row + 0.5, 0.499);
-                StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 70));
-                StdDraw.setPenColor(FONT);
-                if (num != 0)
-                    StdDraw.text(col - 0.5, n - row + 0.5, num +"");
-                //                System.out.println(String.format("(%d, %d) --> %d", row, col, num));
-            }
-        }
-
-        // write status text
-        StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
-        StdDraw.setPenColor(StdDraw.BLACK);
-        //        StdDraw.text(0.25*n, -0.025*n, opened + " open sites");
-        //        if (perc.percolates()) StdDraw.text(0.75*n, -0.025*n, "percolates");
-        //        else                   StdDraw.text(0.75*n, -0.025*n, "does not percolate");
+    private static final TileRenderer RENDERER = new TileRenderer(BLACKGROUND, BLOCK, FONT);
 
+    // draw n-by-n board, repainting only the tiles that moved since the last call
+    public static void draw(PuzzleBoard board, int n) {
+        if (board.dimension() != n)     throw new IllegalArgumentException("board is not " + n + "-by-" + n);
+        RENDERER.draw(board);
     }
     public void move() {
 
     }
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
 
         // turn on animation mode
         StdDraw.enableDoubleBuffering();
 
-        In in = new In(args[0]);    // input file
-        int n = in.readInt();
-        int[][] blocks = new int[n][n];
-
-        for (int i = 0; i < blocks.length; i++) {
-            for (int j = 0; j < blocks[0].length; j++) {
-                blocks[i][j] = in.readInt();
-            }
-        }
-        PuzzleBoard board = new PuzzleBoard(blocks);
+        PuzzleBoard board = BoardReader.read(args[0]);    // input file
+        int n = board.dimension();
         draw(board, n);
         StdDraw.show();
 
-        while (true) {
-            if (board.getManhattan() == 0)  break;
+        KeyQueue keys = KeyQueue.attach();
+        while (board.getManhattan() != 0) {
+            int key = keys.take();          // sleeps until a key comes
+            long frame = System.currentTimeMillis();
+            do {                            // and the ones pressed while the last frame was drawn
+                gameChange(board, key);
+            } while (board.getManhattan() != 0 && (key = keys.poll()) != -1);
+            draw(board, n);
+            StdDraw.show();
 
-            if (StdDraw.isKeyPressed(VK_LEFT)) {
-                System.out.println("LEFT");
-                gameChange(n, board, VK_LEFT);
-            } else if (StdDraw.isKeyPressed(VK_RIGHT)) {
-                System.out.println("RIGHT");
-                gameChange(n, board, VK_RIGHT);
-            } else if (StdDraw.isKeyPressed(VK_UP)) {
-                System.out.println("UP");
-                gameChange(n, board, VK_UP);
-            } else if (StdDraw.isKeyPressed(VK_DOWN)) {
-                System.out.println("DOWN");
-                gameChange(n, board, VK_DOWN);
-            }
+            long wait = frame + FRAME_MILLIS - System.currentTimeMillis();
+            if (wait > 0)   StdDraw.pause((int) wait);      // keys meanwhile go into the next frame
         }
+        System.out.println("You won!!! Your score is " + board.getScore());
     }
-    private static void gameChange(int n, PuzzleBoard board, int key) {
+    private static void gameChange(PuzzleBoard board, int key) {
         if (board.getCurrent().getClass() != GoalState.class) {
             board.move(key);
-            draw(board, n);
-            StdDraw.show();
-            StdDraw.pause(DELAY);
         }
     }
 }
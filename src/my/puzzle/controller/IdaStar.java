@@ -0,0 +1,117 @@
+package my.puzzle.controller;
+
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * iterative-deepening A*: repeated depth-first searches bounded by
+ * moves + heuristic, each bound raised to the smallest f that exceeded
+ * the previous one.
+ *
+ * only one board is kept, moved forward and back in place with
+ * PuzzleBoard.shift, so memory grows with the solution depth instead of
+ * with the number of boards generated.
+ */
+class IdaStar {
+
+    private static final int FOUND = -1;
+
+    private static final int[] KEYS = {
+        PuzzleBoard.VK_UP, PuzzleBoard.VK_DOWN, PuzzleBoard.VK_LEFT, PuzzleBoard.VK_RIGHT
+    };
+
+    private final PuzzleBoard board;    // the one board walked in place
+
+    private final Heuristic heuristic;
+
+    private int[] path = new int[64];   // keys pressed from the initial board
+
+    private int depth = 0;              // number of keys in path
+
+    private int peakDepth = 0;
+
+    private int expansions = 0;
+
+    private long generated = 0;
+
+    private final SearchMetrics metrics;    // told of every new bound
+
+    private final Budget budget;            // checked at every expansion
+
+    IdaStar(PuzzleBoard initial, Heuristic heuristic, SearchMetrics metrics, Budget budget) {
+        this.board = initial.copy();
+        this.heuristic = heuristic;
+        this.metrics = metrics;
+        this.budget = budget;
+    }
+
+    /**
+     * keys leading from the initial board to the goal, shortest first found;
+     * the initial board must be solvable or this never returns
+     */
+    int[] solve() {
+        int h = heuristic.estimate(board);
+        long state = heuristic.state(board);
+        int bound = h;
+        while (true) {
+            metrics.bound(bound, expansions);
+            int t = search(0, h, state, bound, 0);
+            if (t == FOUND)     break;
+            bound = t;
+        }
+        int[] keys = new int[depth];
+        System.arraycopy(path, 0, keys, 0, depth);
+        return keys;
+    }
+
+    int expansions() {
+        return expansions;
+    }
+
+    int peakDepth() {
+        return peakDepth;
+    }
+
+    long generated() {
+        return generated;
+    }
+
+    /**
+     * @return FOUND, or the smallest f above bound seen under this board
+     */
+    private int search(int moves, int h, long state, int bound, int last) {
+        int f = moves + h;
+        if (f > bound)  return f;
+        if (board.getManhattan() == 0)     return FOUND;
+
+        expansions++;
+        budget.check(expansions, bound);
+        int min = Integer.MAX_VALUE;
+        int back = PuzzleBoard.opposite(last);
+        for (int key : KEYS) {
+            int from = board.source(key);
+            if (key == back || from == -1)  continue;     // never undo the last move
+            int childH = heuristic.update(board, h, state, from, board.getVacancy());
+            long childState = heuristic.next(board, state, from, board.getVacancy());
+            generated++;
+            board.shift(key);
+            push(key);
+            int t = search(moves + 1, childH, childState, bound, key);
+            if (t == FOUND)     return FOUND;
+            depth--;
+            board.shift(PuzzleBoard.opposite(key));
+            if (t < min)    min = t;
+        }
+        return min;
+    }
+
+    private void push(int key) {
+        if (depth == path.length) {
+            int[] grown = new int[path.length * 2];
+            System.arraycopy(path, 0, grown, 0, depth);
+            path = grown;
+        }
+        path[depth++] = key;
+        if (depth > peakDepth)  peakDepth = depth;
+    }
+}
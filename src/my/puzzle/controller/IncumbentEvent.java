@@ -0,0 +1,30 @@
+package my.puzzle.controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * an anytime search ended a round with a solution; see SearchMetrics
+ */
+@Name("my.puzzle.Incumbent")
+@Label("Puzzle Incumbent")
+@Category("My8Puzzle")
+@Description("Mode.ANYTIME finished a round with its best solution so far")
+@StackTrace(false)
+class IncumbentEvent extends jdk.jfr.Event {
+
+    @Label("Moves")
+    @Description("Length of the best solution so far")
+    int moves;
+
+    @Label("Epsilon")
+    @Description("Proven bound on the ratio of moves to the optimal length")
+    double epsilon;
+
+    @Label("Expanded")
+    @Description("Boards expanded before the round ended")
+    long expanded;
+}
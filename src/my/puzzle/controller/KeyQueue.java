@@ -0,0 +1,101 @@
+package my.puzzle.controller;
+
+import java.awt.Frame;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import edu.princeton.cs.algs4.StdDraw;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * arrow keys pressed on the StdDraw window, in the order they came, for a
+ * game loop that sleeps in take() instead of spinning on
+ * StdDraw.isKeyPressed.
+ *
+ * separate presses are all queued, however fast they come. a key held
+ * down is queued once when pressed, and its auto-repeats only one every
+ * REPEAT_MILLIS and only while nothing is waiting, so holding a key moves
+ * at a steady pace and never runs ahead of the board. X11 reports each
+ * auto-repeat as a release and a press at the same moment; those count as
+ * repeats too.
+ */
+public class KeyQueue implements KeyListener {
+
+    private static final int REPEAT_MILLIS = 200;
+
+    private static final int X11_REPEAT_MILLIS = 2;     // a release this close before a press is a repeat
+
+    private final BlockingQueue<Integer> keys = new LinkedBlockingQueue<>();
+
+    // the rest is only touched on the event dispatch thread
+    private final Set<Integer> down = new HashSet<>();
+
+    private int releasedKey = -1;
+    private long releasedWhen;
+
+    private long queuedWhen;            // of the last key queued
+
+    /**
+     * a queue listening to the StdDraw window
+     */
+    public static KeyQueue attach() {
+        StdDraw.getPenColor();          // makes sure StdDraw has opened its window
+        for (Frame frame : Frame.getFrames()) {
+            if ("Standard Draw".equals(frame.getTitle())) {
+                KeyQueue queue = new KeyQueue();
+                frame.addKeyListener(queue);
+                return queue;
+            }
+        }
+        throw new IllegalStateException("no StdDraw window");
+    }
+
+    /**
+     * the next key, waiting for one as long as it takes
+     */
+    public int take() throws InterruptedException {
+        return keys.take();
+    }
+
+    /**
+     * the next key, or -1 if none is waiting
+     */
+    public int poll() {
+        Integer key = keys.poll();
+        return key == null ? -1 : key;
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        pressed(e.getKeyCode(), e.getWhen());
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        released(e.getKeyCode(), e.getWhen());
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+    }
+
+    /* ************************ private methods **************************************** */
+    void pressed(int key, long when) {
+        if (key < PuzzleBoard.VK_LEFT || key > PuzzleBoard.VK_DOWN)  return;
+        boolean repeat = !down.add(key)
+                || (key == releasedKey && when - releasedWhen <= X11_REPEAT_MILLIS);
+        if (repeat && (when - queuedWhen < REPEAT_MILLIS || !keys.isEmpty()))   return;
+        queuedWhen = when;
+        keys.add(key);
+    }
+
+    void released(int key, long when) {
+        down.remove(key);
+        releasedKey = key;
+        releasedWhen = when;
+    }
+}
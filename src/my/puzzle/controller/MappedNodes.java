@@ -0,0 +1,162 @@
+package my.puzzle.controller;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * the columns of a NodeArena kept in a memory-mapped file instead of on
+ * the heap, so that a search with an off-heap closed set (see
+ * MappedStateTable) spends no heap on the nodes it has visited.
+ *
+ * a node is one record: its packed blocks, then the blank, moves,
+ * estimate, parent, key, flip flag and the heuristic's state. records are mapped a segment at a
+ * time as ids are handed out, one mapping being limited to 2 GB, and a
+ * page is only backed once written, so the file grows with the search and
+ * costs disk and page cache, not GC time. the file is temporary and
+ * deleted on close.
+ */
+class MappedNodes implements Closeable {
+
+    private static final int SEGMENT_BYTES = 1 << 30;
+
+    // offsets in a record after the packed blocks
+    private static final int VACANCY = 0;
+    private static final int MOVES = 4;
+    private static final int ESTIMATE = 8;
+    private static final int PARENT = 12;
+    private static final int KEY = 16;
+    private static final int FLIPPED = 17;
+    private static final int HEURISTIC = 24;
+    private static final int TAIL = 32;         // the fields above, padded to 8
+
+    private final int recordBytes;
+
+    private final int segmentShift;         // id >>> segmentShift is its segment
+
+    private final int fields;               // offset of the fields after the blocks
+
+    private MappedByteBuffer[] segments = new MappedByteBuffer[4];
+
+    private final File file;
+
+    private final FileChannel channel;
+
+    /**
+     * @param dir directory of the temporary file, the default one when null
+     */
+    MappedNodes(int stride, File dir) throws IOException {
+        fields = stride * 8;
+        recordBytes = fields + TAIL;
+        segmentShift = Integer.numberOfTrailingZeros(Integer.highestOneBit(SEGMENT_BYTES / recordBytes));
+        file = File.createTempFile("nodes", ".arena", dir);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * map the segment holding id, if it is not yet
+     */
+    void ensure(int id) {
+        int s = id >>> segmentShift;
+        if (s < segments.length && segments[s] != null)     return;
+        if (s >= segments.length)   segments = Arrays.copyOf(segments, Math.max(s + 1, segments.length * 2));
+        long segmentSize = (long) recordBytes << segmentShift;
+        try {
+            segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, s * segmentSize, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments[s].order(ByteOrder.nativeOrder());
+    }
+
+    long word(int id, int w) {
+        return segment(id).getLong(offset(id) + 8 * w);
+    }
+
+    void setWord(int id, int w, long word) {
+        segment(id).putLong(offset(id) + 8 * w, word);
+    }
+
+    int vacancy(int id) {
+        return segment(id).getInt(offset(id) + fields + VACANCY);
+    }
+
+    void setVacancy(int id, int vacancy) {
+        segment(id).putInt(offset(id) + fields + VACANCY, vacancy);
+    }
+
+    int moves(int id) {
+        return segment(id).getInt(offset(id) + fields + MOVES);
+    }
+
+    void setMoves(int id, int moves) {
+        segment(id).putInt(offset(id) + fields + MOVES, moves);
+    }
+
+    int estimate(int id) {
+        return segment(id).getInt(offset(id) + fields + ESTIMATE);
+    }
+
+    void setEstimate(int id, int estimate) {
+        segment(id).putInt(offset(id) + fields + ESTIMATE, estimate);
+    }
+
+    int parent(int id) {
+        return segment(id).getInt(offset(id) + fields + PARENT);
+    }
+
+    void setParent(int id, int parent) {
+        segment(id).putInt(offset(id) + fields + PARENT, parent);
+    }
+
+    int key(int id) {
+        return segment(id).get(offset(id) + fields + KEY) & 0xFF;
+    }
+
+    void setKey(int id, int key) {
+        segment(id).put(offset(id) + fields + KEY, (byte) key);
+    }
+
+    boolean isFlipped(int id) {
+        return segment(id).get(offset(id) + fields + FLIPPED) != 0;
+    }
+
+    void setFlipped(int id, boolean flipped) {
+        segment(id).put(offset(id) + fields + FLIPPED, (byte) (flipped ? 1 : 0));
+    }
+
+    long heuristicState(int id) {
+        return segment(id).getLong(offset(id) + fields + HEURISTIC);
+    }
+
+    void setHeuristicState(int id, long state) {
+        segment(id).putLong(offset(id) + fields + HEURISTIC, state);
+    }
+
+    /**
+     * drop the mappings and delete the file; the pages go back to the
+     * system once the buffers are collected
+     */
+    @Override
+    public void close() throws IOException {
+        Arrays.fill(segments, null);
+        channel.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /* ************************ private methods **************************************** */
+    private MappedByteBuffer segment(int id) {
+        return segments[id >>> segmentShift];
+    }
+
+    private int offset(int id) {
+        return (id & ((1 << segmentShift) - 1)) * recordBytes;
+    }
+}
@@ -0,0 +1,168 @@
+package my.puzzle.controller;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * closed set kept outside the Java heap, in a memory-mapped file.
+ *
+ * an open-addressing table with a fixed number of slots, chosen up front;
+ * a slot holds the packed blocks of a board and the id of its cheapest
+ * node, so probing compares boards in the mapping without touching the
+ * arena for every slot it passes. pages are only backed when written, so
+ * a table much larger than the heap costs disk and page cache, not GC
+ * time. the file is split into segments because one mapping is limited to
+ * 2 GB. the nodes themselves are kept off the heap too, by a mapped
+ * NodeArena, so a visited board costs no heap at all; only the open list
+ * stays there.
+ *
+ * when no file is given a temporary one is used and deleted on close.
+ */
+class MappedStateTable implements StateTable, Closeable {
+
+    /**
+     * put refuses to fill more of the table than this, probes get long
+     */
+    static final double MAX_LOAD = 0.75;
+
+    private static final int SEGMENT_BYTES = 1 << 30;
+
+    private final NodeArena nodes;
+
+    private final int stride;           // longs of packed blocks per slot
+
+    private final int slotBytes;        // blocks, then id + 1 (0 when empty), padded to 8
+
+    private final long slots;           // a power of two
+
+    private final int segmentShift;     // slot index >>> segmentShift is its segment
+
+    private final MappedByteBuffer[] segments;
+
+    private final File file;
+
+    private final boolean temporary;
+
+    private long size = 0;
+
+    /**
+     * @param capacity boards the table must hold; slots are rounded up so
+     *                 that capacity stays under MAX_LOAD
+     * @param file     backing file, created or overwritten; null for a
+     *                 temporary file
+     */
+    MappedStateTable(NodeArena nodes, long capacity, File file) throws IOException {
+        if (capacity < 1)   throw new IllegalArgumentException("capacity must be positive");
+        this.nodes = nodes;
+        stride = nodes.stride();
+        slotBytes = stride * 8 + 8;
+
+        long wanted = (long) Math.ceil(capacity / MAX_LOAD);
+        long s = Long.highestOneBit(Math.max(wanted, 16));
+        if (s < wanted)     s <<= 1;
+        slots = s;
+
+        int perSegment = Integer.highestOneBit(SEGMENT_BYTES / slotBytes);
+        segmentShift = Integer.numberOfTrailingZeros(perSegment);
+        long segmentSize = (long) perSegment * slotBytes;
+        long total = slots * slotBytes;
+        int count = (int) ((total + segmentSize - 1) / segmentSize);
+
+        temporary = file == null;
+        this.file = temporary ? File.createTempFile("closed", ".set") : file;
+        segments = new MappedByteBuffer[count];
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < count; i++) {
+                long start = i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(segmentSize, total - start));
+                segments[i].order(ByteOrder.nativeOrder());
+            }
+        }
+    }
+
+    @Override
+    public int get(int id) {
+        long mask = slots - 1;
+        for (long i = hash(id) & mask; ; i = (i + 1) & mask) {
+            int stored = storedId(i);
+            if (stored == 0)            return -1;
+            if (holds(i, id))           return stored - 1;
+        }
+    }
+
+    @Override
+    public void put(int id) {
+        long mask = slots - 1;
+        long i = hash(id) & mask;
+        for (; storedId(i) != 0; i = (i + 1) & mask) {
+            if (holds(i, id)) {
+                setId(i, id);
+                return;
+            }
+        }
+        if (size + 1 > slots * MAX_LOAD)    // Solver reports it as Status.OUT_OF_MEMORY, like a full arena
+            throw new OutOfMemoryError("closed set is full: " + size + " boards in " + slots + " slots");
+        MappedByteBuffer segment = segments[(int) (i >>> segmentShift)];
+        int offset = offset(i);
+        for (int w = 0; w < stride; w++) {
+            segment.putLong(offset + 8 * w, nodes.word(id, w));
+        }
+        setId(i, id);
+        size++;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public double loadFactor() {
+        return (double) size / slots;
+    }
+
+    /**
+     * drop the mappings and delete the file if it was temporary; the pages
+     * go back to the system once the buffers are collected
+     */
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = null;
+        }
+        if (temporary)  Files.deleteIfExists(file.toPath());
+    }
+
+    /* ************************ private methods **************************************** */
+    private long hash(int id) {
+        return (nodes.hash(id) * 0x9E3779B97F4A7C15L) >>> 16;
+    }
+
+    private int offset(long i) {
+        return (int) (i & ((1L << segmentShift) - 1)) * slotBytes;
+    }
+
+    private int storedId(long i) {
+        return segments[(int) (i >>> segmentShift)].getInt(offset(i) + 8 * stride);
+    }
+
+    private void setId(long i, int id) {
+        segments[(int) (i >>> segmentShift)].putInt(offset(i) + 8 * stride, id + 1);
+    }
+
+    private boolean holds(long i, int id) {
+        MappedByteBuffer segment = segments[(int) (i >>> segmentShift)];
+        int offset = offset(i);
+        for (int w = 0; w < stride; w++) {
+            if (segment.getLong(offset + 8 * w) != nodes.word(id, w))   return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,431 @@
+package my.puzzle.controller;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import my.puzzle.model.Grid;
+import my.puzzle.model.PackedTiles;
+import my.puzzle.model.Symmetry;
+
+/**
+ * search nodes kept in parallel primitive arrays and addressed by int ids,
+ * instead of one object (and one board) per node.
+ *
+ * a node is its packed blocks (stride longs, in the same encoding as
+ * PuzzleBoard), the blank's index, moves from the root, heuristic
+ * estimate and state (see Heuristic.state), parent id and the key of the
+ * move that made it. the states are only given an array once one of them
+ * is not 0, every node before that having state 0. ids are handed
+ * out in order and only the newest node can be taken back, so a search can
+ * add a child, look it up and drop it again without any garbage.
+ *
+ * a symmetric arena stores each board in canonical form: of the board and
+ * its transpose (see Symmetry) whichever packs to the smaller words, with
+ * a flag when that is the transpose. equal hash and sameState then mean
+ * "the same board up to the mirror", so a closed set over the arena holds
+ * one entry for both, while tileAt, vacancy and the keys stay those of the
+ * board actually reached.
+ *
+ * a mapped arena keeps the same columns in a memory-mapped file instead
+ * (see MappedNodes), for searches whose closed set is off the heap too;
+ * the arrays below are then null, and close deletes the file.
+ */
+class NodeArena implements Closeable {
+
+    private static final int INITIAL = 1 << 10;
+
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;    // longest array the VMs will allocate
+
+    private final int n;
+    private final int stride;       // longs per board
+    private final boolean nibble;   // 4 bits per block in one long, else 8 bits per block
+
+    private long[] states;
+    private int[] vacancies;
+    private int[] moves;
+    private int[] estimates;
+    private int[] parents;          // -1 for the root
+    private byte[] keys;            // low byte of the arrow key, 0 for the root
+    private long[] heuristics;      // heuristic state, null while every one has been 0
+
+    private boolean[] flipped;      // stored as the transpose, symmetric arenas only
+
+    private final long[] goal;      // packed goal board, its own transpose
+
+    private final int[] mirror;     // cell each cell is transposed to, null unless symmetric
+    private final int[] renamed;    // name each block takes in the transpose
+    private final long[] scratch;
+
+    private final MappedNodes mapped;   // the columns when off the heap, else null
+
+    private final View view = new View();
+
+    private int size = 0;
+
+    NodeArena(int n) {
+        this(n, false);
+    }
+
+    NodeArena(int n, boolean symmetric) {
+        this(n, symmetric, null);
+    }
+
+    /**
+     * an arena in a temporary file in dir (the default directory when
+     * null), holding nodes without any heap
+     */
+    static NodeArena mapped(int n, boolean symmetric, File dir) throws IOException {
+        return new NodeArena(n, symmetric, new MappedNodes(PackedTiles.words(n), dir));
+    }
+
+    private NodeArena(int n, boolean symmetric, MappedNodes mapped) {
+        if (n < 1 || n > PackedTiles.MAX_N)     throw new IllegalArgumentException();
+        this.n = n;
+        this.mapped = mapped;
+        nibble = PackedTiles.fitsLong(n);
+        stride = PackedTiles.words(n);
+
+        if (mapped == null) {
+            states = new long[INITIAL * stride];
+            vacancies = new int[INITIAL];
+            moves = new int[INITIAL];
+            estimates = new int[INITIAL];
+            parents = new int[INITIAL];
+            keys = new byte[INITIAL];
+            if (symmetric)  flipped = new boolean[INITIAL];
+        }
+        if (symmetric) {
+            mirror = new int[n * n];
+            renamed = new int[n * n];
+            for (int i = 0; i < n * n; i++) {
+                mirror[i] = Symmetry.transposeIndex(n, i);
+                renamed[i] = Symmetry.transposeBlock(n, i);
+            }
+            scratch = new long[stride];
+        } else {
+            mirror = null;
+            renamed = null;
+            scratch = null;
+        }
+
+        goal = new long[stride];
+        int len = n * n;
+        for (int i = 0; i < len - 1; i++) {
+            if (nibble)     goal[0] = PackedTiles.set(goal[0], i, i + 1);
+            else            PackedTiles.set(goal, i, i + 1);
+        }
+    }
+
+    /**
+     * add board as a node with no parent
+     */
+    int root(Grid board, int estimate, long state) {
+        if (board.dimension() != n)     throw new IllegalArgumentException();
+        int id = allocate();
+        int len = n * n;
+        long[] words = new long[stride];
+        int vacancy = -1;
+        for (int i = 0; i < len; i++) {
+            int block = board.tileAt(i);
+            if (nibble)     words[0] = PackedTiles.set(words[0], i, block);
+            else            PackedTiles.set(words, i, block);
+            if (block == 0)     vacancy = i;
+        }
+        for (int w = 0; w < stride; w++) {
+            setWord(id, w, words[w]);
+        }
+        set(id, vacancy, 0, estimate, -1, 0);
+        setHeuristicState(id, state);
+        if (mirror != null) {
+            setFlipped(id, false);
+            canonicalize(id);
+        }
+        return id;
+    }
+
+    /**
+     * add the node reached from parent when the block at from slides into
+     * the blank by key
+     */
+    int child(int parent, int key, int from, int estimate, long state) {
+        int id = allocate();
+        int to = vacancy(parent);
+        boolean flip = mirror != null && isFlipped(parent);
+        if (flip)   slide(parent, id, mirror[from], mirror[to]);    // the move as seen in the stored transpose
+        else        slide(parent, id, from, to);
+        if (mirror != null) {
+            setFlipped(id, flip);
+            canonicalize(id);
+        }
+        set(id, from, moves(parent) + 1, estimate, parent, key);
+        setHeuristicState(id, state);
+        return id;
+    }
+
+    /**
+     * take back the node added last
+     */
+    void removeLast() {
+        size--;         // child() overwrites every word, nothing to clear
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dimension() {
+        return n;
+    }
+
+    /**
+     * longs of packed blocks per node
+     */
+    int stride() {
+        return stride;
+    }
+
+    /**
+     * word w of node id's packed blocks, canonical in a symmetric arena
+     */
+    long word(int id, int w) {
+        if (mapped != null)     return mapped.word(id, w);
+        return states[id * stride + w];
+    }
+
+    int tileAt(int id, int i) {
+        if (mirror != null && isFlipped(id))    return renamed[stored(id, mirror[i])];
+        return stored(id, i);
+    }
+
+    int vacancy(int id) {
+        if (mapped != null)     return mapped.vacancy(id);
+        return vacancies[id];
+    }
+
+    int moves(int id) {
+        if (mapped != null)     return mapped.moves(id);
+        return moves[id];
+    }
+
+    int estimate(int id) {
+        if (mapped != null)     return mapped.estimate(id);
+        return estimates[id];
+    }
+
+    int parent(int id) {
+        if (mapped != null)     return mapped.parent(id);
+        return parents[id];
+    }
+
+    long heuristicState(int id) {
+        if (mapped != null)     return mapped.heuristicState(id);
+        return heuristics == null ? 0 : heuristics[id];
+    }
+
+    /**
+     * index of block in node id, found a word at a time
+     */
+    int indexOf(int id, int block) {
+        boolean flip = mirror != null && isFlipped(id);
+        if (flip)   block = renamed[block];
+        int i = -1;
+        if (nibble) {
+            i = PackedTiles.indexOf(word(id, 0), block);
+        } else {
+            for (int w = 0; w < stride && i == -1; w++) {
+                int slot = PackedTiles.indexOfByte(word(id, w), block);
+                if (slot != -1)     i = (w << 3) + slot;
+            }
+        }
+        return flip && i != -1 ? mirror[i] : i;
+    }
+
+    boolean isGoal(int id) {
+        for (int w = 0; w < stride; w++) {
+            if (word(id, w) != goal[w])     return false;
+        }
+        return true;
+    }
+
+    boolean sameState(int a, int b) {
+        for (int w = 0; w < stride; w++) {
+            if (word(a, w) != word(b, w))   return false;
+        }
+        return true;
+    }
+
+    int hash(int id) {
+        if (nibble)     return PackedTiles.hash(word(id, 0));
+        int h = 1;
+        for (int w = 0; w < stride; w++) {
+            h = 31 * h + PackedTiles.hash(word(id, w));
+        }
+        return h;
+    }
+
+    /**
+     * keys of the moves from the root to id, in playing order
+     */
+    int[] path(int id) {
+        int[] path = new int[moves(id)];
+        for (int k = path.length - 1; k >= 0; k--) {
+            path[k] = mapped != null ? mapped.key(id) : keys[id] & 0xFF;
+            id = parent(id);
+        }
+        return path;
+    }
+
+    /**
+     * a Grid over node id, for heuristics; the same object is handed out on
+     * every call, so it is only valid until the next one
+     */
+    Grid view(int id) {
+        view.id = id;
+        return view;
+    }
+
+    /**
+     * delete the file of a mapped arena; nothing to do on the heap
+     */
+    @Override
+    public void close() throws IOException {
+        if (mapped != null)     mapped.close();
+    }
+
+    /* ************************ private methods **************************************** */
+    private int stored(int id, int i) {
+        if (nibble)     return PackedTiles.get(word(id, 0), i);
+        if (mapped != null)     return PackedTiles.getByte(mapped.word(id, PackedTiles.wordOf(i)), i);
+        return PackedTiles.get(states, id * stride, i);
+    }
+
+    private void setWord(int id, int w, long word) {
+        if (mapped != null)     mapped.setWord(id, w, word);
+        else                    states[id * stride + w] = word;
+    }
+
+    private boolean isFlipped(int id) {
+        if (mapped != null)     return mapped.isFlipped(id);
+        return flipped[id];
+    }
+
+    private void setFlipped(int id, boolean flip) {
+        if (mapped != null)     mapped.setFlipped(id, flip);
+        else                    flipped[id] = flip;
+    }
+
+    private void set(int id, int vacancy, int moves, int estimate, int parent, int key) {
+        if (mapped != null) {
+            mapped.setVacancy(id, vacancy);
+            mapped.setMoves(id, moves);
+            mapped.setEstimate(id, estimate);
+            mapped.setParent(id, parent);
+            mapped.setKey(id, key);
+            return;
+        }
+        vacancies[id] = vacancy;
+        this.moves[id] = moves;
+        estimates[id] = estimate;
+        parents[id] = parent;
+        keys[id] = (byte) key;
+    }
+
+    private void setHeuristicState(int id, long state) {
+        if (mapped != null) {
+            mapped.setHeuristicState(id, state);
+            return;
+        }
+        if (heuristics == null) {
+            if (state == 0)     return;
+            heuristics = new long[moves.length];
+        }
+        heuristics[id] = state;
+    }
+
+    /**
+     * write parent's stored blocks to id with the block at from slid to to
+     */
+    private void slide(int parent, int id, int from, int to) {
+        if (nibble) {
+            setWord(id, 0, PackedTiles.slide(word(parent, 0), from, to));
+        } else if (mapped == null) {
+            System.arraycopy(states, parent * stride, states, id * stride, stride);
+            PackedTiles.slide(states, id * stride, from, to);
+        } else {
+            for (int w = 0; w < stride; w++) {
+                mapped.setWord(id, w, mapped.word(parent, w));
+            }
+            int block = stored(id, from);
+            int w = PackedTiles.wordOf(from);
+            mapped.setWord(id, w, PackedTiles.setByte(mapped.word(id, w), from, 0));
+            w = PackedTiles.wordOf(to);
+            mapped.setWord(id, w, PackedTiles.setByte(mapped.word(id, w), to, block));
+        }
+    }
+
+    /**
+     * store id's transpose instead when it packs to smaller words
+     */
+    private void canonicalize(int id) {
+        int len = n * n;
+        for (int i = 0; i < len; i++) {
+            int block = renamed[stored(id, i)];
+            if (nibble)     scratch[0] = PackedTiles.set(scratch[0], mirror[i], block);
+            else            PackedTiles.set(scratch, 0, mirror[i], block);
+        }
+        for (int w = 0; w < stride; w++) {
+            int c = Long.compareUnsigned(scratch[w], word(id, w));
+            if (c > 0)  return;
+            if (c < 0) {
+                for (int k = 0; k < stride; k++) {
+                    setWord(id, k, scratch[k]);
+                }
+                setFlipped(id, !isFlipped(id));
+                return;
+            }
+        }
+    }
+
+    private int allocate() {
+        if (mapped != null) {
+            if (size == Integer.MAX_VALUE)  throw new OutOfMemoryError("node arena is full: " + size + " nodes");
+            mapped.ensure(size);
+            return size++;
+        }
+        if (size == moves.length) {
+            int limit = MAX_ARRAY / stride;     // nodes whose blocks still fit one long[]
+            if (size >= limit)  throw new OutOfMemoryError("node arena is full: " + limit + " nodes of " + n + "-by-" + n + " boards");
+            int len = (int) Math.min(2L * size, limit);
+            states = Arrays.copyOf(states, Math.multiplyExact(len, stride));
+            vacancies = Arrays.copyOf(vacancies, len);
+            moves = Arrays.copyOf(moves, len);
+            estimates = Arrays.copyOf(estimates, len);
+            parents = Arrays.copyOf(parents, len);
+            keys = Arrays.copyOf(keys, len);
+            if (heuristics != null)     heuristics = Arrays.copyOf(heuristics, len);
+            if (flipped != null)    flipped = Arrays.copyOf(flipped, len);
+        }
+        return size++;
+    }
+
+    private class View implements Grid {
+        int id;
+
+        @Override
+        public int dimension() {
+            return n;
+        }
+
+        @Override
+        public int tileAt(int i) {
+            return NodeArena.this.tileAt(id, i);
+        }
+
+        @Override
+        public int indexOf(int block) {
+            return NodeArena.this.indexOf(id, block);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package my.puzzle.controller;
+
+/**
+ * the cheapest known node of each board, for A*'s duplicate detection.
+ *
+ * an open-addressing hash table of node ids on the heap; the boards
+ * themselves stay in the arena, so an entry is one int and lookups compare
+ * packed blocks. it doubles when half full.
+ */
+class NodeTable implements StateTable {
+
+    private final NodeArena nodes;
+
+    private int[] slots = new int[1 << 10];     // node id + 1, 0 when empty
+
+    private int size = 0;
+
+    NodeTable(NodeArena nodes) {
+        this.nodes = nodes;
+    }
+
+    @Override
+    public int get(int id) {
+        int mask = slots.length - 1;
+        for (int i = nodes.hash(id) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (nodes.sameState(slots[i] - 1, id))  return slots[i] - 1;
+        }
+        return -1;
+    }
+
+    @Override
+    public void put(int id) {
+        int mask = slots.length - 1;
+        int i = nodes.hash(id) & mask;
+        for (; slots[i] != 0; i = (i + 1) & mask) {
+            if (nodes.sameState(slots[i] - 1, id)) {
+                slots[i] = id + 1;
+                return;
+            }
+        }
+        slots[i] = id + 1;
+        if (++size > slots.length >>> 1)    resize();
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public double loadFactor() {
+        return (double) size / slots.length;
+    }
+
+    /* ************************ private methods **************************************** */
+    private void resize() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        int mask = slots.length - 1;
+        for (int s : old) {
+            if (s == 0)     continue;
+            int i = nodes.hash(s - 1) & mask;
+            while (slots[i] != 0)   i = (i + 1) & mask;
+            slots[i] = s;
+        }
+    }
+}
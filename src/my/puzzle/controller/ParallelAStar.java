@@ -0,0 +1,285 @@
+package my.puzzle.controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * hash-distributed A* (HDA*).
+ *
+ * every board has an owner thread picked by its hash. each thread keeps its
+ * own open list and closed map for the boards it owns and never locks them;
+ * a generated board owned by another thread is sent to that thread's
+ * lock-free inbox.
+ *
+ * the first goal found is only an incumbent: threads go on expanding
+ * boards whose moves + estimate is below its cost, so the result is as
+ * short as the sequential A* one. the search ends when no thread has such
+ * a board and no board is in flight. active counts busy threads plus
+ * boards sent but not yet received, so it reaches zero exactly then.
+ *
+ * the calling thread waits for the workers, checking the budget every
+ * POLL_MILLIS against the expansions they have counted so far; over it,
+ * stopped tells every worker to return at its next board.
+ */
+class ParallelAStar {
+
+    private static final long POLL_MILLIS = 10;
+
+    private final int threads;
+
+    private final Heuristic heuristic;
+
+    private final List<Queue<Node>> inboxes;
+
+    private final AtomicLong active;
+
+    private volatile int incumbentMoves = Integer.MAX_VALUE;
+
+    private Node incumbent;
+
+    private final Worker[] workers;
+
+    private volatile boolean stopped = false;   // every worker returns, the search is given up
+
+    private volatile Throwable failure;         // what ended a worker by throwing, rethrown by solve
+
+    ParallelAStar(int threads, Heuristic heuristic) {
+        this.threads = threads;
+        this.heuristic = heuristic;
+        inboxes = new ArrayList<>(threads);
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            inboxes.add(new ConcurrentLinkedQueue<>());
+            workers[i] = new Worker(i);
+        }
+        active = new AtomicLong(threads);
+    }
+
+    /**
+     * goal node of a shortest solution, its father chain leads back to initial;
+     * the initial board must be solvable
+     */
+    Node solve(PuzzleBoard initial, Budget budget) {
+        send(new Node(initial, null, heuristic.estimate(initial), heuristic.state(initial)));
+
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            running[i] = new Thread(workers[i], "hda-" + i);
+            running[i].start();
+        }
+        try {
+            for (Thread t : running) {
+                t.join(POLL_MILLIS);
+                while (t.isAlive()) {
+                    budget.poll(expansions(), -1);
+                    t.join(POLL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            stopAll(running);
+            Thread.currentThread().interrupt();
+            throw new Budget.Stop(Solver.Status.CANCELLED);
+        } catch (Budget.Stop e) {
+            stopAll(running);
+            throw e;
+        }
+        if (failure instanceof Error)               throw (Error) failure;
+        if (failure instanceof RuntimeException)    throw (RuntimeException) failure;
+        return incumbent;
+    }
+
+    int expansions() {
+        int sum = 0;
+        for (Worker w : workers)    sum += w.expansions;
+        return sum;
+    }
+
+    int duplicates() {
+        int sum = 0;
+        for (Worker w : workers)    sum += w.duplicates;
+        return sum;
+    }
+
+    int storedNodes() {
+        int sum = 0;
+        for (Worker w : workers)    sum += w.best.size();
+        return sum;
+    }
+
+    long generated() {
+        long sum = 0;
+        for (Worker w : workers)    sum += w.generated;
+        return sum;
+    }
+
+    /**
+     * the open lists' peaks added up, which they need not reach together
+     */
+    int peakOpen() {
+        int sum = 0;
+        for (Worker w : workers)    sum += w.peakOpen;
+        return sum;
+    }
+
+    /* ************************ private methods **************************************** */
+    /**
+     * tell the workers to give up, and wait until they have
+     */
+    private void stopAll(Thread[] running) {
+        stopped = true;
+        boolean interrupted = false;
+        for (Thread t : running) {
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)    Thread.currentThread().interrupt();
+    }
+
+    private int owner(PuzzleBoard board) {
+        return (board.hashCode() & 0x7fffffff) % threads;
+    }
+
+    private void send(Node node) {
+        active.incrementAndGet();       // counted until the owner has taken it
+        inboxes.get(owner(node.board)).add(node);
+    }
+
+    private synchronized void offer(Node goal) {
+        if (goal.moves < incumbentMoves) {
+            incumbent = goal;
+            incumbentMoves = goal.moves;
+        }
+    }
+
+    static final class Node implements Comparable<Node> {
+        final PuzzleBoard board;
+        final int moves;
+        final int estimate;
+        final long state;           // the heuristic's, see Heuristic.state
+        final Node father;
+
+        Node(PuzzleBoard board, Node father, int estimate, long state) {
+            this.board = board;
+            this.moves = father == null ? 0 : father.moves + 1;
+            this.estimate = estimate;
+            this.state = state;
+            this.father = father;
+        }
+
+        int f() {
+            return moves + estimate;
+        }
+
+        @Override
+        public int compareTo(Node o) {
+            if (f() != o.f())   return Integer.compare(f(), o.f());
+            return Integer.compare(estimate, o.estimate);       // deeper first on ties
+        }
+    }
+
+    private class Worker implements Runnable {
+        final int id;
+        final PriorityQueue<Node> open = new PriorityQueue<>();
+        final Map<PuzzleBoard, Integer> best = new HashMap<>();     // best moves of each owned board
+        // written by this worker only, volatile so the polling thread reads them current
+        volatile int expansions = 0;
+        volatile int duplicates = 0;
+        volatile long generated = 0;
+        volatile int peakOpen = 0;
+        boolean idle = false;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            try {
+                search();
+            } catch (Throwable e) {     // the others would wait for this one forever
+                failure = e;
+                stopped = true;
+            }
+        }
+
+        private void search() {
+            while (!stopped) {
+                Node received;
+                while ((received = inboxes.get(id).poll()) != null) {
+                    if (idle) {         // busy again before the message stops counting
+                        active.incrementAndGet();
+                        idle = false;
+                    }
+                    receive(received);
+                    active.decrementAndGet();
+                }
+
+                Node top = open.peek();
+                if (top == null || top.f() >= incumbentMoves) {     // nothing here can beat the incumbent
+                    if (!idle) {
+                        idle = true;
+                        if (active.decrementAndGet() == 0)  return;
+                    } else if (active.get() == 0) {
+                        return;
+                    }
+                    LockSupport.parkNanos(10000);
+                    continue;
+                }
+
+                open.poll();
+                if (top.moves > best.get(top.board)) {      // a cheaper path came in later
+                    duplicates++;
+                    continue;
+                }
+                if (top.board.getManhattan() == 0) {
+                    offer(top);
+                    continue;
+                }
+                expand(top);
+            }
+        }
+
+        private void receive(Node node) {
+            Integer known = best.get(node.board);
+            if (known != null && known <= node.moves) {
+                duplicates++;
+                return;
+            }
+            best.put(node.board, node.moves);
+            open.add(node);
+            if (open.size() > peakOpen)     peakOpen = open.size();
+        }
+
+        private void expand(Node node) {
+            expansions++;
+            int back = node.father == null ? -1 : node.father.board.getVacancy();
+            node.board.forEachMove((key, from) -> {
+                if (from == back)   return;     // straight back to the father
+                int h = heuristic.update(node.board, node.estimate, node.state, from, node.board.getVacancy());
+                if (node.moves + 1 + h >= incumbentMoves)   return;     // priced before building the board
+
+                long state = heuristic.next(node.board, node.state, from, node.board.getVacancy());
+                PuzzleBoard b = node.board.moved(key);
+                generated++;
+                Node child = new Node(b, node, h, state);
+                if (owner(b) == id)     receive(child);
+                else                    send(child);
+            });
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package my.puzzle.controller;
+
+/**
+ * told how a search is getting on, from the thread running it, about ten
+ * times a second; see SolverOptions.setProgressListener
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * @param expanded  boards expanded so far
+     * @param bound     the f-bound being searched, for Mode.ANYTIME the length
+     *                  of the best solution so far, -1 when there is none
+     * @param elapsedMillis time since the search began
+     */
+    void progress(long expanded, int bound, long elapsedMillis);
+}
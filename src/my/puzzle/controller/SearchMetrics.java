@@ -0,0 +1,259 @@
+package my.puzzle.controller;
+
+import java.util.Arrays;
+
+/**
+ * what a Solver run did, for telling why a solve was slow.
+ *
+ * generated counts every child board written, expanded every board whose
+ * children were generated, and duplicates the children and queue entries
+ * dropped because the board was already known at least as cheaply. open
+ * and closed are the largest the open list (IDA*: the path) and closed set
+ * grew to. search time is wall time inside the engine; heuristic time is
+ * the part spent in Heuristic calls, measured only with
+ * SolverOptions.setProfiling since it reads the clock twice per call, and
+ * -1 otherwise.
+ *
+ * the f-bound timeline has one entry each time the search moved on to a
+ * larger f = moves + h: A* when the smallest f on its open list rose, IDA*
+ * at every new iteration. each entry notes the bound, the boards expanded
+ * before it was reached and the nanoseconds since the search began.
+ *
+ * Mode.ANYTIME has no f-bounds to speak of, its rounds order the open list
+ * by a weighted f. it keeps an incumbent timeline instead, one entry per
+ * round: the length of the best solution so far and epsilon, the proven
+ * bound on its ratio to the optimal length, with the same expanded count
+ * and time.
+ *
+ * the points of the two timelines are emitted as FBoundEvent and
+ * IncumbentEvent, and the whole run as SolveEvent, when a Flight Recorder
+ * recording is on.
+ */
+public class SearchMetrics {
+
+    private long start;
+
+    private long generated = 0;
+    private long expanded = 0;
+    private long duplicates = 0;
+    private long peakOpen = 0;
+    private long peakClosed = 0;
+    private long searchNanos = 0;
+    private long heuristicNanos = -1;
+
+    private int[] bounds = new int[16];
+    private long[] boundExpanded = new long[16];
+    private long[] boundNanos = new long[16];
+    private int count = 0;
+
+    private int[] incumbents = new int[16];
+    private double[] epsilons = new double[16];
+    private long[] incumbentExpanded = new long[16];
+    private long[] incumbentNanos = new long[16];
+    private int incumbentCount = 0;
+
+    public long generated() {
+        return generated;
+    }
+
+    public long expanded() {
+        return expanded;
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+
+    public long peakOpen() {
+        return peakOpen;
+    }
+
+    public long peakClosed() {
+        return peakClosed;
+    }
+
+    public long searchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * time inside Heuristic calls, -1 unless profiling
+     */
+    public long heuristicNanos() {
+        return heuristicNanos;
+    }
+
+    /**
+     * search time outside Heuristic calls, -1 unless profiling
+     */
+    public long expansionNanos() {
+        return heuristicNanos == -1 ? -1 : searchNanos - heuristicNanos;
+    }
+
+    /**
+     * number of entries in the f-bound timeline
+     */
+    public int bounds() {
+        return count;
+    }
+
+    public int bound(int i) {
+        check(i);
+        return bounds[i];
+    }
+
+    /**
+     * boards expanded before bound(i) was reached
+     */
+    public long expandedAt(int i) {
+        check(i);
+        return boundExpanded[i];
+    }
+
+    /**
+     * nanoseconds from the start of the search to bound(i)
+     */
+    public long nanosAt(int i) {
+        check(i);
+        return boundNanos[i];
+    }
+
+    /**
+     * number of entries in the incumbent timeline, 0 unless Mode.ANYTIME
+     */
+    public int incumbents() {
+        return incumbentCount;
+    }
+
+    /**
+     * length of the best solution after round i
+     */
+    public int incumbent(int i) {
+        checkIncumbent(i);
+        return incumbents[i];
+    }
+
+    /**
+     * proven bound on incumbent(i) over the optimal length, at least 1
+     */
+    public double epsilon(int i) {
+        checkIncumbent(i);
+        return epsilons[i];
+    }
+
+    /**
+     * boards expanded before round i ended
+     */
+    public long incumbentExpandedAt(int i) {
+        checkIncumbent(i);
+        return incumbentExpanded[i];
+    }
+
+    /**
+     * nanoseconds from the start of the search to the end of round i
+     */
+    public long incumbentNanosAt(int i) {
+        checkIncumbent(i);
+        return incumbentNanos[i];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(String.format("generated=%d expanded=%d duplicates=%d peakOpen=%d peakClosed=%d searchMs=%.1f",
+                generated, expanded, duplicates, peakOpen, peakClosed, searchNanos / 1e6));
+        if (heuristicNanos != -1)   s.append(String.format(" heuristicMs=%.1f", heuristicNanos / 1e6));
+        s.append(" bounds=");
+        for (int i = 0; i < count; i++) {
+            if (i > 0)  s.append(',');
+            s.append(bounds[i]).append('@').append(boundExpanded[i]);
+        }
+        if (incumbentCount > 0)     s.append(" incumbents=");
+        for (int i = 0; i < incumbentCount; i++) {
+            if (i > 0)  s.append(',');
+            s.append(String.format("%d/%.2f@%d", incumbents[i], epsilons[i], incumbentExpanded[i]));
+        }
+        return s.toString();
+    }
+
+    /* ************************ recording, for the engines ***************************** */
+    void start() {
+        start = System.nanoTime();
+    }
+
+    void stop() {
+        searchNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * the search moved on to f-bound f after expanding expanded boards
+     */
+    void bound(int f, long expanded) {
+        if (count == bounds.length) {
+            bounds = Arrays.copyOf(bounds, count * 2);
+            boundExpanded = Arrays.copyOf(boundExpanded, count * 2);
+            boundNanos = Arrays.copyOf(boundNanos, count * 2);
+        }
+        bounds[count] = f;
+        boundExpanded[count] = expanded;
+        boundNanos[count] = System.nanoTime() - start;
+        count++;
+
+        FBoundEvent event = new FBoundEvent();
+        if (event.isEnabled()) {
+            event.bound = f;
+            event.expanded = expanded;
+            event.commit();
+        }
+    }
+
+    /**
+     * an anytime round ended with a solution of the given length, proven
+     * within epsilon of the optimum, after expanding expanded boards
+     */
+    void incumbent(int moves, double epsilon, long expanded) {
+        if (incumbentCount == incumbents.length) {
+            incumbents = Arrays.copyOf(incumbents, incumbentCount * 2);
+            epsilons = Arrays.copyOf(epsilons, incumbentCount * 2);
+            incumbentExpanded = Arrays.copyOf(incumbentExpanded, incumbentCount * 2);
+            incumbentNanos = Arrays.copyOf(incumbentNanos, incumbentCount * 2);
+        }
+        incumbents[incumbentCount] = moves;
+        epsilons[incumbentCount] = epsilon;
+        incumbentExpanded[incumbentCount] = expanded;
+        incumbentNanos[incumbentCount] = System.nanoTime() - start;
+        incumbentCount++;
+
+        IncumbentEvent event = new IncumbentEvent();
+        if (event.isEnabled()) {
+            event.moves = moves;
+            event.epsilon = epsilon;
+            event.expanded = expanded;
+            event.commit();
+        }
+    }
+
+    void counts(long generated, long expanded, long duplicates) {
+        this.generated = generated;
+        this.expanded = expanded;
+        this.duplicates = duplicates;
+    }
+
+    void peaks(long open, long closed) {
+        peakOpen = open;
+        peakClosed = closed;
+    }
+
+    void heuristicNanos(long nanos) {
+        heuristicNanos = nanos;
+    }
+
+    /* ************************ private methods **************************************** */
+    private void check(int i) {
+        if (i < 0 || i >= count)    throw new IndexOutOfBoundsException("no bound " + i);
+    }
+
+    private void checkIncumbent(int i) {
+        if (i < 0 || i >= incumbentCount)   throw new IndexOutOfBoundsException("no incumbent " + i);
+    }
+}
@@ -0,0 +1,126 @@
+package my.puzzle.controller;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import my.puzzle.model.PuzzleBoard;
+import my.puzzle.model.Symmetry;
+
+/**
+ * solutions of recently solved boards, least recently used evicted first.
+ *
+ * put indexes every board along the solution, not only the first, and all
+ * of them share one key array: a board reached by playing part of a cached
+ * solution is served the rest of it. with symmetric set a miss also tries
+ * the transposed board (see Symmetry) and swaps the keys back. capacity
+ * counts boards, so one solution of k moves takes k + 1 entries.
+ *
+ * Solver consults the cache given in SolverOptions before searching. all
+ * methods are synchronized, so one cache can serve a BatchSolver pool.
+ */
+public class SolutionCache {
+
+    private final boolean symmetric;
+
+    private final Map<PuzzleBoard, Entry> entries;
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    private long evictions = 0;
+
+    public SolutionCache(int capacity, boolean symmetric) {
+        if (capacity < 1)   throw new IllegalArgumentException("capacity must be positive");
+        this.symmetric = symmetric;
+        entries = new LinkedHashMap<PuzzleBoard, Entry>(16, 0.75f, true) {   // access order
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PuzzleBoard, Entry> eldest) {
+                if (size() <= capacity)     return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * keys of a shortest solution of board, null if it is not cached
+     */
+    public synchronized int[] get(PuzzleBoard board) {
+        Entry e = entries.get(board);
+        if (e != null) {
+            hits++;
+            return e.keys();
+        }
+        if (symmetric) {
+            e = entries.get(Symmetry.transpose(board));
+            if (e != null) {
+                hits++;
+                int[] keys = e.keys();
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = Symmetry.transposeKey(keys[i]);
+                }
+                return keys;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * remember keys as a shortest solution of board, and each of its
+     * suffixes as one of the board it starts from
+     */
+    public synchronized void put(PuzzleBoard board, int[] keys) {
+        int[] shared = keys.clone();
+        PuzzleBoard[] path = new PuzzleBoard[shared.length + 1];
+        path[0] = board.copy();
+        for (int i = 0; i < shared.length; i++) {
+            path[i + 1] = path[i].copy();
+            if (!path[i + 1].shift(shared[i]))  throw new IllegalArgumentException("key " + i + " is not a legal move");
+        }
+        for (int i = shared.length; i >= 0; i--) {      // board itself last, so it is evicted last
+            entries.put(path[i], new Entry(shared, i));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * keys[offset ..] of a solution shared with other boards on its path
+     */
+    private static final class Entry {
+        final int[] shared;
+        final int offset;
+
+        Entry(int[] shared, int offset) {
+            this.shared = shared;
+            this.offset = offset;
+        }
+
+        int[] keys() {
+            return Arrays.copyOfRange(shared, offset, shared.length);
+        }
+    }
+}
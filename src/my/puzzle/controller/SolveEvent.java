@@ -0,0 +1,46 @@
+package my.puzzle.controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * one Solver run, timed from the start of its search to the end; the
+ * fields are those of SearchMetrics
+ */
+@Name("my.puzzle.Solve")
+@Label("Puzzle Solve")
+@Category("My8Puzzle")
+@Description("A board solved by Solver")
+class SolveEvent extends jdk.jfr.Event {
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Status")
+    @Description("How the solve ended, see Solver.Status")
+    String status;
+
+    @Label("Dimension")
+    int dimension;
+
+    @Label("Moves")
+    @Description("Length of the solution, -1 if the board is unsolvable")
+    int moves;
+
+    @Label("Generated")
+    long generated;
+
+    @Label("Expanded")
+    long expanded;
+
+    @Label("Duplicates")
+    long duplicates;
+
+    @Label("Peak Open")
+    long peakOpen;
+
+    @Label("Peak Closed")
+    long peakClosed;
+}
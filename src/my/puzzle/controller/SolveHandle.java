@@ -0,0 +1,65 @@
+package my.puzzle.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import my.puzzle.model.PuzzleBoard;
+
+/**
+ * a Solver running on another thread, from Solver.submit.
+ *
+ * the search looks at cancel() as it expands boards and ends soon after,
+ * completing the future with a Solver whose status() is CANCELLED; a
+ * budget from SolverOptions ends it the same way with BUDGET_EXCEEDED.
+ * cancelling the future itself also stops the search, though the future
+ * then completes at once. a Mode.ANYTIME solve stopped early keeps the
+ * best solution it had found:
+ *
+ *   SolveHandle handle = Solver.submit(board, new SolverOptions().setTimeBudget(5000));
+ *   handle.result().thenAccept(s -> show(s.solution()));
+ *   ...
+ *   handle.cancel();
+ */
+public class SolveHandle {
+
+    private final Budget budget;
+
+    private final CompletableFuture<Solver> result;
+
+    SolveHandle(PuzzleBoard initial, SolverOptions options, Executor executor) {
+        budget = new Budget(options);
+        result = CompletableFuture.supplyAsync(() -> new Solver(initial, options, budget), executor);
+        result.whenComplete((solver, e) -> {
+            if (result.isCancelled())   budget.cancel();
+        });
+    }
+
+    /**
+     * completes with the Solver once the search has ended, however it ended
+     */
+    public CompletableFuture<Solver> result() {
+        return result;
+    }
+
+    /**
+     * ask the search to stop; it does within about a thousand expansions
+     */
+    public void cancel() {
+        budget.cancel();
+    }
+
+    public boolean isCancelled() {
+        return budget.isCancelled();
+    }
+
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * wait for the search to end
+     */
+    public Solver join() {
+        return result.join();
+    }
+}
@@ -1,12 +1,43 @@
 package my.puzzle.controller;
-import edu.princeton.cs.algs4.In;
-import edu.princeton.cs.algs4.MinPQ;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import edu.princeton.cs.algs4.Stack;
 import edu.princeton.cs.algs4.StdDraw;
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.heuristic.ManhattanHeuristic;
+import my.puzzle.heuristic.PatternDatabase;
+import my.puzzle.model.BoardReader;
+import my.puzzle.model.Grid;
 import my.puzzle.model.PuzzleBoard;
 
 public class Solver {
 
+    /**
+     * search engine used to find the solution
+     */
+    public enum Mode {
+        ASTAR,      // A* with a closed set, fastest but keeps every board it generates
+        IDASTAR,    // iterative-deepening A*, memory proportional to the solution depth
+        PARALLEL,   // hash-distributed A* over SolverOptions.getThreads() threads
+        BIDIRECTIONAL,  // A* forward from the board and backward from the goal until they meet
+        ANYTIME     // ARA*: rounds of weighted A* from SolverOptions.getWeight() down to 1, see AnytimeSearch
+    }
+
+    /**
+     * how a solve ended
+     */
+    public enum Status {
+        SOLVED,         // solution() holds a solution
+        UNSOLVABLE,     // the board has no solution, told by its parity
+        BUDGET_EXCEEDED,    // ran past SolverOptions.getTimeBudget() or getNodeBudget()
+        CANCELLED,      // SolveHandle.cancel, or the solving thread was interrupted
+        OUT_OF_MEMORY   // the heap, the node arena or the off-heap closed set ran out first; a node budget keeps a search inside them
+    }
+
     // delay in miliseconds (controls animation speed)
     private static final int DELAY = 200;
     
@@ -16,61 +47,366 @@ public class Solver {
 
     private boolean solvable = false;
 
+    private int expansions = 0;     // boards taken off the open list and expanded
+
+    private int duplicates = 0;     // re-insertions dropped because a cheaper path was known
+
+    private int peakNodes = 0;      // most search nodes held at once
+
+    private double closedSetLoad = 0;   // load factor of the A* closed set when the search ended
+
+    private long generated = 0;     // child boards written
+
+    private long peakOpen = 0;      // largest open list, or deepest IDA* path
+
+    private long peakClosed = 0;    // boards in the closed set when the search ended
+
+    private final SearchMetrics metrics = new SearchMetrics();
+
     private final Stack<PuzzleBoard> solution;
 
+    private final Heuristic heuristic;
+
+    private final double weight;    // on h in A*'s f, 1 for optimal solutions
+
+    private double suboptimality = 1;   // proven ratio of moves to the optimal length
+
+    private Status status = Status.SOLVED;
+
+    private final Budget budget;
+
     public Solver(PuzzleBoard initial)           // find a solution to the initial board (using the A* algorithm)
     {
-        if (initial == null) throw new java.lang.IllegalArgumentException();
+        this(initial, Mode.ASTAR);
+    }
+    public Solver(PuzzleBoard initial, Mode mode)    // find a solution to the initial board with the given engine
+    {
+        this(initial, mode, new ManhattanHeuristic());
+    }
+    public Solver(PuzzleBoard initial, Mode mode, Heuristic heuristic)    // ... guided by the given heuristic
+    {
+        this(initial, new SolverOptions().setMode(mode).setHeuristic(heuristic));
+    }
+    public Solver(PuzzleBoard initial, SolverOptions options)    // ... with every setting taken from options
+    {
+        this(initial, options, options == null ? null : new Budget(options));
+    }
+    Solver(PuzzleBoard initial, SolverOptions options, Budget budget)    // ... stopping when budget says so
+    {
+        if (initial == null || options == null) throw new java.lang.IllegalArgumentException();
 
+        this.budget = budget;
+        TimedHeuristic timed = options.isProfiling() ? new TimedHeuristic(options.getHeuristic()) : null;
+        this.heuristic = timed != null ? timed : options.getHeuristic();
+        this.weight = options.getWeight();
         moves = 0;
-        Priority min = new Priority(initial, null);
-        Priority twin = new Priority(initial.twin(), null);
+        solution = new Stack<>();
+
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        metrics.start();
+        budget.start();
+        run(initial, options);
+        metrics.stop();
+        metrics.counts(generated, expansions, duplicates);
+        metrics.peaks(peakOpen, peakClosed);
+        if (timed != null)  metrics.heuristicNanos(timed.nanos());
+        if (event.shouldCommit()) {
+            event.mode = options.getMode().name();
+            event.status = status.name();
+            event.dimension = initial.dimension();
+            event.moves = moves;
+            event.generated = generated;
+            event.expanded = expansions;
+            event.duplicates = duplicates;
+            event.peakOpen = peakOpen;
+            event.peakClosed = peakClosed;
+            event.commit();
+        }
+    }
+    private void run(PuzzleBoard initial, SolverOptions options) {
+        if (!initial.isSolvable()) {    // decided by parity, nothing to search
+            moves = -1;
+            status = Status.UNSOLVABLE;
+            return;
+        }
+
+        SolutionCache cache = options.getSolutionCache();
+        int[] cached = cache == null ? null : cache.get(initial);
+        if (cached != null) {       // solved before, nothing to search
+            replay(initial, cached);
+            solvable = true;
+            moves = cached.length;
+            return;
+        }
+        try {
+            search(initial, options);
+        } catch (Budget.Stop e) {
+            status = e.status;
+        } catch (OutOfMemoryError e) {      // the engine's nodes are garbage once it has unwound
+            status = Status.OUT_OF_MEMORY;
+        }
+        if (status != Status.SOLVED) {
+            if (!solvable)  moves = -1;     // Mode.ANYTIME may still have a solution from an earlier round
+            return;
+        }
+        if (cache != null && suboptimality == 1)    cache.put(initial, keys(initial.dimension()));
+    }
+    private void search(PuzzleBoard initial, SolverOptions options) {
+        if (options.getEightPuzzleTable() != null && initial.dimension() == 3) {
+            solveByTable(initial, options.getEightPuzzleTable());
+            return;
+        }
+        switch (options.getMode()) {
+        case IDASTAR:
+            solveIdaStar(initial);
+            break;
+        case PARALLEL:
+            solveParallel(initial, options.getThreads());
+            break;
+        case BIDIRECTIONAL:
+            solveBidirectional(initial);
+            break;
+        case ANYTIME:
+            solveAnytime(initial, options);
+            break;
+        default:
+            solveAStar(initial, options);
+            break;
+        }
+    }
+    private void solveIdaStar(PuzzleBoard initial) {
+        IdaStar search = new IdaStar(initial, heuristic, metrics, budget);
+        int[] keys;
+        try {
+            keys = search.solve();
+        } finally {
+            expansions = search.expansions();
+            generated = search.generated();
+            peakNodes = search.peakDepth() + 1;
+            peakOpen = peakNodes;
+        }
+
+        replay(initial, keys);
+        solvable = true;
+        moves = keys.length;
+    }
+    private void solveByTable(PuzzleBoard initial, EightPuzzleTable table) {
+        int[] keys = table.solve(initial);
+        expansions = keys.length;       // one lookup round per move, nothing searched
+        peakNodes = 1;
 
-        MinPQ<Priority> minPQ = new MinPQ<>();
-        MinPQ<Priority> twinPQ = new MinPQ<>();
+        replay(initial, keys);
+        solvable = true;
+        moves = keys.length;
+    }
+    private void solveBidirectional(PuzzleBoard initial) {
+        BidirectionalAStar search = new BidirectionalAStar(initial, heuristic, budget);
+        int[] keys;
+        try {
+            keys = search.solve(initial);
+        } finally {
+            expansions = search.expansions();
+            duplicates = search.duplicates();
+            generated = search.generated();
+            peakNodes = search.storedNodes();
+            peakOpen = search.peakOpen();
+            peakClosed = peakNodes;
+        }
 
-        minPQ.insert(min);      // insert min
-        twinPQ.insert(twin);      
-        Priority sol = solve(minPQ, twinPQ);
+        replay(initial, keys);
+        solvable = true;
+        moves = keys.length;
+    }
+    private void solveParallel(PuzzleBoard initial, int threads) {
+        ParallelAStar search = new ParallelAStar(threads, heuristic);
+        ParallelAStar.Node sol;
+        try {
+            sol = search.solve(initial, budget);
+        } finally {
+            expansions = search.expansions();
+            duplicates = search.duplicates();
+            generated = search.generated();
+            peakNodes = search.storedNodes();
+            peakOpen = search.peakOpen();
+            peakClosed = peakNodes;
+        }
 
-        solution = new Stack<>();
+        solvable = true;
+        moves = sol.moves;
         while (sol != null) {       // get solution
             solution.push(sol.board);
             sol = sol.father;
         }
     }
-    private Priority solve(MinPQ<Priority> minPQ, MinPQ<Priority> twinPQ) {
-        Priority min;
-        Priority twin;
+    private void solveAnytime(PuzzleBoard initial, SolverOptions options) {
+        AnytimeSearch search = new AnytimeSearch(initial, heuristic, weight, options.getWeightStep(), budget);
+        try {
+            while (search.improve()) {
+                metrics.incumbent(search.moves(), search.bound(), search.expansions());
+            }
+        } finally {     // stopped early, the last complete round's solution still stands
+            expansions = search.expansions();
+            duplicates = search.duplicates();
+            generated = search.generated();
+            peakOpen = search.peakOpen();
+            peakClosed = search.storedNodes();
+            peakNodes = (int) peakClosed;
+            int[] keys = search.keys();
+            if (keys != null) {
+                // a goal taken off the open list mid-round is within that round's weight already
+                suboptimality = Double.isInfinite(search.bound()) ? search.weight() : search.bound();
+                replay(initial, keys);
+                solvable = true;
+                moves = keys.length;
+            }
+        }
+    }
+    private void solveAStar(PuzzleBoard initial, SolverOptions options) {
+        BucketQueue open = new BucketQueue();       // ids into nodes
+        if (options.getClosedSetCapacity() == 0) {
+            NodeArena nodes = new NodeArena(initial.dimension(), options.isSymmetric());
+            solveAStar(initial, nodes, open, new NodeTable(nodes));
+            return;
+        }
+        // nodes and closed set larger than the heap, in mapped files side by side
+        File file = options.getClosedSetFile();
+        File dir = file == null ? null : file.getAbsoluteFile().getParentFile();
+        try (NodeArena nodes = NodeArena.mapped(initial.dimension(), options.isSymmetric(), dir);
+                MappedStateTable best = new MappedStateTable(nodes, options.getClosedSetCapacity(), file)) {
+            solveAStar(initial, nodes, open, best);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    private void solveAStar(PuzzleBoard initial, NodeArena nodes, BucketQueue open, StateTable best) {
+        int root = nodes.root(initial, heuristic.estimate(initial), heuristic.state(initial));
+        best.put(root);
+        open.insert(root, weigh(nodes.estimate(root)), weigh(nodes.estimate(root)));
+        int sol;
+        try {
+            sol = solve(open, nodes, best);
+        } finally {
+            peakNodes = nodes.size();       // every node kept, the arena never shrinks
+            closedSetLoad = best.loadFactor();
+            peakClosed = best.size();
+        }
+        if (weight > 1)     suboptimality = weight;
+
+        replay(initial, nodes.path(sol));
+    }
+    private int solve(BucketQueue open, NodeArena nodes, StateTable best) {
+        int min;
+        int bound = -1;
         while (true) {
-            min = minPQ.delMin();   // find the smallest one
-            if (min.board.getManhattan() == 0) {   // solvable
+            min = pollBest(open, best);   // find the smallest one
+            int f = nodes.moves(min) + nodes.estimate(min);
+            if (f > bound) {
+                bound = f;
+                metrics.bound(f, expansions);
+            }
+            if (nodes.isGoal(min)) {   // solved
                 solvable = true;
-                moves = min.moves;
-                break;
-            } 
-            twin = twinPQ.delMin();   // find the smallest one
-            if (twin.board.getManhattan() == 0) {   // unsolvable
-                moves = -1;
+                moves = nodes.moves(min);
                 break;
             } 
-            insertNeighbors(minPQ, min);
-            insertNeighbors(twinPQ, twin);
+            insertNeighbors(open, nodes, min, best);
+            expansions++;
+            if (open.size() > peakOpen)     peakOpen = open.size();
+            budget.check(expansions, bound);
+        }
+        return min;
+    }
+    /**
+     * take the smallest entry off the queue, skipping entries whose board was
+     * reached by a cheaper path after they had been inserted
+     */
+    private int pollBest(BucketQueue open, StateTable best) {
+        int id = open.delMin();
+        while (best.get(id) != id) {
+            duplicates++;
+            id = open.delMin();
+        }
+        return id;
+    }
+    /**
+     * queue the nodes one move from min; a child is written into the arena
+     * and taken back again when a path at least as short is already known
+     */
+    private void insertNeighbors(BucketQueue open, NodeArena nodes, int min, StateTable best) {
+        Grid board = nodes.view(min);
+        int h = nodes.estimate(min);
+        long state = nodes.heuristicState(min);
+        int vacancy = nodes.vacancy(min);
+        int father = nodes.parent(min);
+        int back = father == -1 ? -1 : nodes.vacancy(father);
+        PuzzleBoard.forEachMove(nodes.dimension(), vacancy, (key, from) -> {
+            if (from == back) {         // undoes the last move, the father is already known
+                duplicates++;
+                return;
+            }
+            int childH = heuristic.update(board, h, state, from, vacancy);
+            int child = nodes.child(min, key, from, childH, heuristic.next(board, state, from, vacancy));
+            generated++;
+            int known = best.get(child);
+            if (known != -1 && nodes.moves(known) <= nodes.moves(child)) {     // dominated
+                duplicates++;
+                nodes.removeLast();
+                return;
+            }
+            best.put(child);
+            int weighted = weigh(nodes.estimate(child));
+            open.insert(child, nodes.moves(child) + weighted, weighted);
+        });
+    }
+    /**
+     * h as it counts in f, (int) (weight * h): a solution popped first is
+     * then at most weight times the optimal length
+     */
+    private int weigh(int h) {
+        return weight == 1 ? h : (int) (weight * h);
+    }
+    /**
+     * the keys that play the solution, read off the blank's steps
+     */
+    private int[] keys(int n) {
+        int[] keys = new int[moves];
+        PuzzleBoard prev = null;
+        int i = 0;
+        for (PuzzleBoard b : solution) {
+            if (prev != null) {
+                int step = b.getVacancy() - prev.getVacancy();
+                if      (step == 1)     keys[i++] = PuzzleBoard.VK_LEFT;
+                else if (step == -1)    keys[i++] = PuzzleBoard.VK_RIGHT;
+                else if (step == n)     keys[i++] = PuzzleBoard.VK_UP;
+                else                    keys[i++] = PuzzleBoard.VK_DOWN;
+            }
+            prev = b;
         }
-        if (solvable)   return min;
-        return null;
+        return keys;
     }
-    private Iterable<PuzzleBoard> insertNeighbors(MinPQ<Priority> minPQ, Priority min) {
-        Iterable<PuzzleBoard> it = min.board.neighbors(); // get smallest one's neighbors
-        for (PuzzleBoard b : it) {
-            if (min.father == null || !b.equals(min.father.board))   minPQ.insert(new Priority(b, min));
+    /**
+     * push the boards reached by playing keys from initial onto solution
+     */
+    private void replay(PuzzleBoard initial, int[] keys) {
+        PuzzleBoard[] boards = new PuzzleBoard[keys.length + 1];
+        boards[0] = initial;
+        for (int i = 0; i < keys.length; i++) {     // replay the keys
+            boards[i + 1] = boards[i].copy();
+            boards[i + 1].shift(keys[i]);
+        }
+        for (int i = keys.length; i >= 0; i--) {    // get solution
+            solution.push(boards[i]);
         }
-        return it;
     }
-    public boolean isSolvable()            // is the initial board solvable?
+    public boolean isSolvable()            // is the initial board solvable? false too when stopped before a solution, see status()
     {
         return solvable;
     }
+    public Status status()                 // how the solve ended
+    {
+        return status;
+    }
     public int moves()                     // min number of moves to solve initial board; -1 if unsolvable
     {
         if (!solvable)  return -1;
@@ -81,49 +417,55 @@ public class Solver {
         if (!solvable)  return null;
         return solution;
     }
-    private class Priority implements Comparable<Priority> {
-        PuzzleBoard board;
-        int moves;
-        int manhattan;
-        Priority father;
-
-        Priority(PuzzleBoard mBoard, Priority mFather) {
-            this.board = mBoard;
-            if (mFather == null)    this.moves = 0;
-            else                    this.moves = mFather.moves + 1;
-            this.manhattan = board.getManhattan(); 
-            this.father = mFather;
-        }
-        int getPriority() {
-            return manhattan + moves; 
-        }
-        @Override
-        public int compareTo(Priority p) {
-            return Integer.compare(getPriority(), p.getPriority());
-        }
+    public int expansions()                // number of boards expanded by the search
+    {
+        return expansions;
+    }
+    public int duplicates()                // number of repeated boards the closed set kept out of the search
+    {
+        return duplicates;
+    }
+    public int peakNodes()                 // most search nodes the engine held in memory at once
+    {
+        return peakNodes;
+    }
+    public double closedSetLoad()          // load factor of the A* closed set at the end; 0 for the other engines
+    {
+        return closedSetLoad;
     }
-    public static void main(String[] args) // solve a slider puzzle (given below)
+    public double suboptimality()          // proven bound on moves() over the optimal length, 1 when it is optimal
+    {
+        return suboptimality;
+    }
+    public SearchMetrics metrics()         // counters, peaks, timings and f-bound or incumbent timeline of the search
+    {
+        return metrics;
+    }
+    public static SolveHandle submit(PuzzleBoard initial, SolverOptions options)    // solve on the common pool, without blocking
+    {
+        return submit(initial, options, ForkJoinPool.commonPool());
+    }
+    public static SolveHandle submit(PuzzleBoard initial, SolverOptions options, Executor executor)    // ... on executor
+    {
+        if (initial == null || options == null || executor == null) throw new java.lang.IllegalArgumentException();
+        return new SolveHandle(initial, options, executor);
+    }
+    public static void main(String[] args) throws IOException // solve a slider puzzle (given below), optionally with a pattern database file
     {
         // turn on animation mode
         StdDraw.enableDoubleBuffering();
 
-        In in = new In(args[0]);    // input file
-        int n = in.readInt();
-        int[][] blocks = new int[n][n];
-
-        for (int i = 0; i < blocks.length; i++) {
-            for (int j = 0; j < blocks[0].length; j++) {
-                blocks[i][j] = in.readInt();
-            }
-        }
-        PuzzleBoard board = new PuzzleBoard(blocks);
+        PuzzleBoard board = BoardReader.read(args[0]);    // input file
+        int n = board.dimension();
         Game.draw(board, n);
         StdDraw.show();
 
 //        while (true) {
 //            if (StdDraw.isKeyPressed(VK_SPACE))     break;
 //        }
-        Iterable<PuzzleBoard> ans = new Solver(board).solution();
+        Heuristic heuristic = new ManhattanHeuristic();
+        if (args.length > 1)    heuristic = PatternDatabase.load(new File(args[1]));
+        Iterable<PuzzleBoard> ans = new Solver(board, Mode.ASTAR, heuristic).solution();
 
         for (PuzzleBoard pb : ans) {
             StdDraw.pause(DELAY);
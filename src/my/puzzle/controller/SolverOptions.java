@@ -0,0 +1,228 @@
+package my.puzzle.controller;
+
+import java.io.File;
+
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.heuristic.ManhattanHeuristic;
+
+/**
+ * settings for a Solver run. setters return this so they can be chained:
+ *
+ *   new Solver(board, new SolverOptions().setMode(Solver.Mode.PARALLEL).setThreads(4))
+ */
+public class SolverOptions {
+
+    private Solver.Mode mode = Solver.Mode.ASTAR;
+
+    private Heuristic heuristic = new ManhattanHeuristic();
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private long closedSetCapacity = 0;
+
+    private File closedSetFile = null;
+
+    private boolean symmetric = false;
+
+    private boolean profiling = false;
+
+    private double weight = 1;
+
+    private double weightStep = 0.5;
+
+    private EightPuzzleTable eightPuzzleTable = null;
+
+    private SolutionCache solutionCache = null;
+
+    private long timeBudget = 0;
+
+    private long nodeBudget = 0;
+
+    private ProgressListener progressListener = null;
+
+    public Solver.Mode getMode() {
+        return mode;
+    }
+
+    public SolverOptions setMode(Solver.Mode mode) {
+        if (mode == null)   throw new IllegalArgumentException();
+        this.mode = mode;
+        return this;
+    }
+
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    public SolverOptions setHeuristic(Heuristic heuristic) {
+        if (heuristic == null)  throw new IllegalArgumentException();
+        this.heuristic = heuristic;
+        return this;
+    }
+
+    /**
+     * search threads for Mode.PARALLEL, the number of processors by default
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public SolverOptions setThreads(int threads) {
+        if (threads < 1)    throw new IllegalArgumentException();
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * boards the A* closed set must hold when it is kept off the heap in a
+     * memory-mapped file, with the search nodes in a second, temporary one
+     * beside it; 0 (the default) keeps both on the heap, growing as needed.
+     * a search that fills the table ends with Status.OUT_OF_MEMORY
+     */
+    public long getClosedSetCapacity() {
+        return closedSetCapacity;
+    }
+
+    public SolverOptions setClosedSetCapacity(long closedSetCapacity) {
+        if (closedSetCapacity < 0)  throw new IllegalArgumentException();
+        this.closedSetCapacity = closedSetCapacity;
+        return this;
+    }
+
+    /**
+     * file behind an off-heap closed set, a temporary file when null
+     */
+    public File getClosedSetFile() {
+        return closedSetFile;
+    }
+
+    public SolverOptions setClosedSetFile(File closedSetFile) {
+        this.closedSetFile = closedSetFile;
+        return this;
+    }
+
+    /**
+     * weight on the heuristic, at least 1. Mode.ASTAR with a weight above 1
+     * is weighted A*, finding a solution at most weight times the optimal
+     * length, usually with far fewer expansions; Mode.ANYTIME starts from
+     * it. the other modes ignore it
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    public SolverOptions setWeight(double weight) {
+        if (!(weight >= 1))     throw new IllegalArgumentException("weight must be at least 1");
+        this.weight = weight;
+        return this;
+    }
+
+    /**
+     * how much Mode.ANYTIME lowers the weight between rounds
+     */
+    public double getWeightStep() {
+        return weightStep;
+    }
+
+    public SolverOptions setWeightStep(double weightStep) {
+        if (!(weightStep > 0))  throw new IllegalArgumentException("weight step must be positive");
+        this.weightStep = weightStep;
+        return this;
+    }
+
+    /**
+     * whether Mode.ASTAR treats a board and its transpose as one state in
+     * the closed set, off by default; see NodeArena. few searches reach
+     * both, so it saves little: about 1% of the expansions on the sample
+     * puzzles
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    public SolverOptions setSymmetric(boolean symmetric) {
+        this.symmetric = symmetric;
+        return this;
+    }
+
+    /**
+     * whether time spent in the heuristic is measured for
+     * SearchMetrics.heuristicNanos, off by default since it reads the
+     * clock around every heuristic call
+     */
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    public SolverOptions setProfiling(boolean profiling) {
+        this.profiling = profiling;
+        return this;
+    }
+
+    /**
+     * when set, 3-by-3 boards are solved by lookups in this table whatever
+     * the mode
+     */
+    public EightPuzzleTable getEightPuzzleTable() {
+        return eightPuzzleTable;
+    }
+
+    public SolverOptions setEightPuzzleTable(EightPuzzleTable eightPuzzleTable) {
+        this.eightPuzzleTable = eightPuzzleTable;
+        return this;
+    }
+
+    /**
+     * when set, boards are looked up here before searching, and solutions
+     * found are added
+     */
+    public SolutionCache getSolutionCache() {
+        return solutionCache;
+    }
+
+    public SolverOptions setSolutionCache(SolutionCache solutionCache) {
+        this.solutionCache = solutionCache;
+        return this;
+    }
+
+    /**
+     * milliseconds the search may run, 0 (the default) for no limit; past
+     * it Solver stops with Status.BUDGET_EXCEEDED
+     */
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    public SolverOptions setTimeBudget(long millis) {
+        if (millis < 0)     throw new IllegalArgumentException("time budget must not be negative");
+        this.timeBudget = millis;
+        return this;
+    }
+
+    /**
+     * boards the search may expand, 0 (the default) for no limit. the
+     * engines keep a node or two per board expanded, so this also bounds
+     * the memory a solve takes
+     */
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    public SolverOptions setNodeBudget(long nodes) {
+        if (nodes < 0)  throw new IllegalArgumentException("node budget must not be negative");
+        this.nodeBudget = nodes;
+        return this;
+    }
+
+    /**
+     * when set, called from the solving thread as the search goes on
+     */
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    public SolverOptions setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+}
@@ -0,0 +1,28 @@
+package my.puzzle.controller;
+
+/**
+ * A*'s closed set: the cheapest known node of each board, by node id into
+ * a NodeArena.
+ */
+interface StateTable {
+
+    /**
+     * id of the stored node with the same board as id, -1 if there is none
+     */
+    int get(int id);
+
+    /**
+     * store id, replacing the node with the same board if there is one
+     */
+    void put(int id);
+
+    /**
+     * number of boards stored
+     */
+    long size();
+
+    /**
+     * size over the number of slots
+     */
+    double loadFactor();
+}
@@ -0,0 +1,165 @@
+package my.puzzle.controller;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.princeton.cs.algs4.StdDraw;
+import my.puzzle.model.Grid;
+
+/**
+ * draws boards on StdDraw a cell at a time.
+ *
+ * a tile is a filled square with its number written on it, through
+ * StdDraw's public calls only. what would otherwise be made on every frame
+ * is made once per board size instead: the font, sized to the cell, and
+ * the labels.
+ *
+ * the renderer remembers the tile it last drew in every cell: drawing a
+ * board of the same size repaints only the cells whose tile changed, the
+ * two of a move, and a board of another size (or reset) repaints them all.
+ * the frames drawn in the last second, and the time draw took for each on
+ * average, are written in the bottom border. callers still show() the
+ * frame themselves.
+ */
+public class TileRenderer {
+
+    private static final int CANVAS = 512;          // StdDraw's default canvas side, in pixels
+
+    private static final double BORDER = 0.05;      // around the board, as a part of its side
+
+    private static final Font STATUS = new Font("SansSerif", Font.PLAIN, 12);
+
+    private final Color background;
+
+    private final Color block;
+
+    private final Color text;
+
+    private final Map<Integer, Font> fonts = new HashMap<>();         // tile font, by n
+
+    private final Map<Integer, String[]> labels = new HashMap<>();    // number of each tile, by n
+
+    private int n = 0;
+
+    private int[] shown = null;         // tile drawn in each cell, null when nothing is
+
+    private long second = System.nanoTime();   // start of the current second
+    private int frames = 0;             // drawn in it so far
+    private long drawNanos = 0;         // spent in draw in it so far
+    private int fps = 0;                // of the last full second
+    private double frameMillis = 0;     // average draw time of the last full second
+
+    public TileRenderer(Color background, Color block, Color text) {
+        if (background == null || block == null || text == null)   throw new IllegalArgumentException();
+        this.background = background;
+        this.block = block;
+        this.text = text;
+    }
+
+    /**
+     * bring the canvas up to board, repainting the cells that differ from
+     * what was drawn last
+     */
+    public void draw(Grid board) {
+        long start = System.nanoTime();
+        int size = board.dimension();
+        if (shown == null || size != n) {
+            n = size;
+            shown = new int[n * n];
+            Arrays.fill(shown, -1);
+            StdDraw.clear();
+            StdDraw.setXscale(-BORDER * n, (1 + BORDER) * n);
+            StdDraw.setYscale(-BORDER * n, (1 + BORDER) * n);   // leave a border to write text
+        }
+
+        Font font = font(n);
+        String[] names = labels(n);
+        for (int i = 0; i < n * n; i++) {
+            int num = board.tileAt(i);
+            if (num == shown[i])    continue;
+            shown[i] = num;
+            double x = i % n + 0.5;
+            double y = n - i / n - 0.5;
+            StdDraw.setPenColor(background);
+            StdDraw.filledSquare(x, y, 0.5);
+            if (num == 0)   continue;
+            StdDraw.setPenColor(block);
+            StdDraw.filledSquare(x, y, 0.499);     // a hairline of background between tiles
+            StdDraw.setFont(font);
+            StdDraw.setPenColor(text);
+            StdDraw.text(x, y, names[num]);
+        }
+        frame(System.nanoTime() - start);
+    }
+
+    /**
+     * forget what was drawn, so the next draw repaints everything; for
+     * when something else has drawn on the canvas
+     */
+    public void reset() {
+        shown = null;
+    }
+
+    /**
+     * frames drawn in the last full second
+     */
+    public int fps() {
+        return fps;
+    }
+
+    /**
+     * average milliseconds draw took per frame in the last full second
+     */
+    public double frameMillis() {
+        return frameMillis;
+    }
+
+    /* ************************ private methods **************************************** */
+    private void frame(long nanos) {
+        frames++;
+        drawNanos += nanos;
+        long now = System.nanoTime();
+        if (now - second >= 1_000_000_000L) {
+            fps = frames;
+            frameMillis = drawNanos / 1e6 / frames;
+            frames = 0;
+            drawNanos = 0;
+            second = now;
+        }
+
+        StdDraw.setPenColor(StdDraw.WHITE);     // what StdDraw.clear leaves in the border
+        StdDraw.filledRectangle(n / 2.0, -BORDER * n / 2, (0.5 + BORDER) * n, BORDER * n * 0.45);     // short of the board's edge
+        StdDraw.setFont(STATUS);
+        StdDraw.setPenColor(StdDraw.BLACK);
+        StdDraw.textLeft(0, -BORDER * n / 2, String.format("%d fps, %.2f ms/frame", fps, frameMillis));
+    }
+
+    /**
+     * the tile font of an n-by-n board, 70pt on a 3-by-3 as it always was
+     * and scaled with the cell otherwise
+     */
+    private Font font(int n) {
+        Font font = fonts.get(n);
+        if (font == null) {
+            double cell = CANVAS / ((1 + 2 * BORDER) * n);     // pixels
+            font = new Font("SansSerif", Font.PLAIN, (int) Math.round(cell * 0.45));
+            fonts.put(n, font);
+        }
+        return font;
+    }
+
+    private String[] labels(int n) {
+        String[] names = labels.get(n);
+        if (names == null) {
+            names = new String[n * n];
+            for (int num = 1; num < n * n; num++) {
+                names[num] = Integer.toString(num);
+            }
+            labels.put(n, names);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,65 @@
+package my.puzzle.controller;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import my.puzzle.heuristic.Heuristic;
+import my.puzzle.model.Grid;
+
+/**
+ * a heuristic that adds the time spent in it to a counter, for
+ * SearchMetrics.heuristicNanos; safe to share between search threads
+ */
+class TimedHeuristic implements Heuristic {
+
+    private final Heuristic heuristic;
+
+    private final LongAdder nanos = new LongAdder();
+
+    TimedHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public int estimate(Grid board) {
+        long start = System.nanoTime();
+        int h = heuristic.estimate(board);
+        nanos.add(System.nanoTime() - start);
+        return h;
+    }
+
+    @Override
+    public int update(Grid board, int h, int from, int to) {
+        long start = System.nanoTime();
+        int updated = heuristic.update(board, h, from, to);
+        nanos.add(System.nanoTime() - start);
+        return updated;
+    }
+
+    @Override
+    public long state(Grid board) {
+        long start = System.nanoTime();
+        long state = heuristic.state(board);
+        nanos.add(System.nanoTime() - start);
+        return state;
+    }
+
+    @Override
+    public long next(Grid board, long state, int from, int to) {
+        long start = System.nanoTime();
+        long next = heuristic.next(board, state, from, to);
+        nanos.add(System.nanoTime() - start);
+        return next;
+    }
+
+    @Override
+    public int update(Grid board, int h, long state, int from, int to) {
+        long start = System.nanoTime();
+        int updated = heuristic.update(board, h, state, from, to);
+        nanos.add(System.nanoTime() - start);
+        return updated;
+    }
+
+    long nanos() {
+        return nanos.sum();
+    }
+}
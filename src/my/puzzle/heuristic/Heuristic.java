@@ -0,0 +1,54 @@
+package my.puzzle.heuristic;
+
+import my.puzzle.model.Grid;
+
+/**
+ * an admissible estimate of the moves left to reach the goal.
+ *
+ * searches call estimate once for the initial board and then update for
+ * every move, so implementations should make update cheaper than a full
+ * estimate. a heuristic whose update would still have to look at the whole
+ * board can keep some state of its own with each board instead: searches
+ * take state once for the initial board, store next's result with every
+ * child and pass it back to update. the defaults keep nothing.
+ */
+public interface Heuristic {
+
+    /**
+     * lower bound on the number of moves from board to the goal
+     */
+    int estimate(Grid board);
+
+    /**
+     * estimate for the board reached when the block at index from slides
+     * into the blank at index to
+     *
+     * @param board the board before the move
+     * @param h     estimate(board)
+     */
+    int update(Grid board, int h, int from, int to);
+
+    /**
+     * what update needs of board beyond the board itself, 0 when nothing
+     */
+    default long state(Grid board) {
+        return 0;
+    }
+
+    /**
+     * state of the board reached when the block at index from slides into
+     * the blank at index to
+     *
+     * @param state state(board)
+     */
+    default long next(Grid board, long state, int from, int to) {
+        return 0;
+    }
+
+    /**
+     * update, given state(board) as well
+     */
+    default int update(Grid board, int h, long state, int from, int to) {
+        return update(board, h, from, to);
+    }
+}
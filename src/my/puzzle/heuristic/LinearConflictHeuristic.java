@@ -0,0 +1,97 @@
+package my.puzzle.heuristic;
+
+import my.puzzle.model.Grid;
+
+/**
+ * Manhattan distance plus linear conflicts.
+ *
+ * two blocks are in conflict when both are in their goal row (or column)
+ * but in the wrong order; one of them has to leave the line and come back,
+ * which Manhattan distance does not count. for each line the fewest blocks
+ * that must leave is the line's block count minus its longest run in goal
+ * order, and each of them costs two extra moves.
+ *
+ * a slide changes one block's column (horizontal move) or row (vertical
+ * move), so update only recounts the two lines the block left and entered.
+ */
+public class LinearConflictHeuristic implements Heuristic {
+
+    @Override
+    public int estimate(Grid board) {
+        int n = board.dimension();
+        int h = new ManhattanHeuristic().estimate(board);
+        for (int line = 0; line < n; line++) {
+            h += 2 * (rowConflicts(board, line, -1, -1) + columnConflicts(board, line, -1, -1));
+        }
+        return h;
+    }
+
+    @Override
+    public int update(Grid board, int h, int from, int to) {
+        int n = board.dimension();
+        int block = board.tileAt(from);
+        h += ManhattanHeuristic.distance(n, block, to) - ManhattanHeuristic.distance(n, block, from);
+
+        if (from / n == to / n) {       // horizontal move: the block changes column
+            int c1 = from % n;
+            int c2 = to % n;
+            h += 2 * (columnConflicts(board, c1, from, to) - columnConflicts(board, c1, -1, -1));
+            h += 2 * (columnConflicts(board, c2, from, to) - columnConflicts(board, c2, -1, -1));
+        } else {                        // vertical move: the block changes row
+            int r1 = from / n;
+            int r2 = to / n;
+            h += 2 * (rowConflicts(board, r1, from, to) - rowConflicts(board, r1, -1, -1));
+            h += 2 * (rowConflicts(board, r2, from, to) - rowConflicts(board, r2, -1, -1));
+        }
+        return h;
+    }
+
+    /* ************************ private methods **************************************** */
+    /**
+     * conflicts in row, as if the block at from had slid to to (-1 for the
+     * board as it is)
+     */
+    private int rowConflicts(Grid board, int row, int from, int to) {
+        int n = board.dimension();
+        int[] goals = new int[n];
+        int k = 0;
+        for (int col = 0; col < n; col++) {
+            int block = tileAt(board, row * n + col, from, to);
+            if (block != 0 && (block - 1) / n == row)   goals[k++] = (block - 1) % n;
+        }
+        return k - longestIncreasing(goals, k);
+    }
+
+    private int columnConflicts(Grid board, int col, int from, int to) {
+        int n = board.dimension();
+        int[] goals = new int[n];
+        int k = 0;
+        for (int row = 0; row < n; row++) {
+            int block = tileAt(board, row * n + col, from, to);
+            if (block != 0 && (block - 1) % n == col)   goals[k++] = (block - 1) / n;
+        }
+        return k - longestIncreasing(goals, k);
+    }
+
+    private int tileAt(Grid board, int i, int from, int to) {
+        if (i == to)    return board.tileAt(from);
+        if (i == from)  return 0;
+        return board.tileAt(i);
+    }
+
+    /**
+     * length of the longest strictly increasing subsequence of a[0 .. k)
+     */
+    private int longestIncreasing(int[] a, int k) {
+        if (k < 2)  return k;
+        int[] tails = new int[k];
+        int len = 0;
+        for (int i = 0; i < k; i++) {
+            int j = 0;
+            while (j < len && tails[j] < a[i])  j++;
+            tails[j] = a[i];
+            if (j == len)   len++;
+        }
+        return len;
+    }
+}
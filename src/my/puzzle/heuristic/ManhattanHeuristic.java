@@ -0,0 +1,73 @@
+package my.puzzle.heuristic;
+
+import my.puzzle.model.Grid;
+
+/**
+ * sum of the Manhattan distances between blocks and their goal positions.
+ *
+ * the goal is the usual one unless a target board is given, which lets a
+ * search running backward estimate its distance to the initial board.
+ */
+public class ManhattanHeuristic implements Heuristic {
+
+    private final int[] target;     // target[block] = index block must reach, null for the usual goal
+
+    public ManhattanHeuristic() {
+        target = null;
+    }
+
+    /**
+     * distances to the positions blocks have on target instead
+     */
+    public ManhattanHeuristic(Grid target) {
+        int len = target.dimension() * target.dimension();
+        this.target = new int[len];
+        for (int i = 0; i < len; i++) {
+            this.target[target.tileAt(i)] = i;
+        }
+    }
+
+    @Override
+    public int estimate(Grid board) {
+        int n = board.dimension();
+        check(n);
+        int len = n * n;
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            int block = board.tileAt(i);
+            if (block != 0)     h += toTarget(n, block, i);
+        }
+        return h;
+    }
+
+    @Override
+    public int update(Grid board, int h, int from, int to) {
+        int n = board.dimension();
+        int block = board.tileAt(from);
+        return h + toTarget(n, block, to) - toTarget(n, block, from);   // only one block moved
+    }
+
+    /* ************************ private methods **************************************** */
+    private void check(int n) {
+        if (target != null && target.length != n * n)
+            throw new IllegalArgumentException("target is not " + n + "-by-" + n);
+    }
+
+    private int toTarget(int n, int block, int i) {
+        if (target == null)     return distance(n, block, i);
+        return steps(n, i, target[block]);
+    }
+
+    /**
+     * manhattan distance of block when it sits at index i
+     */
+    static int distance(int n, int block, int i) {
+        return steps(n, i, block - 1);
+    }
+
+    private static int steps(int n, int i, int goal) {
+        int x = goal / n - i / n;
+        int y = goal % n - i % n;
+        return (x > 0 ? x : -x) + (y > 0 ? y : -y);
+    }
+}
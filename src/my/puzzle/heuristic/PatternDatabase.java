@@ -0,0 +1,445 @@
+package my.puzzle.heuristic;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import my.puzzle.model.Grid;
+import my.puzzle.model.PermutationRank;
+import my.puzzle.model.Symmetry;
+
+/**
+ * disjoint additive pattern database.
+ *
+ * the blocks are split into groups. for each group a table holds, for every
+ * placement of that group's blocks, the fewest moves of those blocks needed
+ * to bring them home, with all other blocks treated as blanks. moves of
+ * blocks outside the group are free, so the values of disjoint groups can be
+ * added and still never overestimate.
+ *
+ * tables are built once with a breadth-first search from the goal and
+ * written to a file:
+ *
+ *   int magic, int n, int groups, then per group int k and its k blocks,
+ *   then each group's table, one byte per placement rank
+ *
+ * load maps that file read-only, so a lookup is a single byte read and the
+ * tables live outside the Java heap.
+ *
+ * the goal is its own transpose (see Symmetry), so a group's table also
+ * serves the transposed group, read with the transposed board. a group
+ * that is the transpose of an earlier one gets no table of its own: 2,3,4
+ * and 5,9,13 on a 4-by-4 take one table between them. such files start
+ * with a second magic, "PDB2", and the tables of those groups are left out.
+ * only groups given that way are shared; the default partitions below
+ * have no mirrored groups. reflected() looks the transposed board up as
+ * well and takes the larger sum, the maximum of two partitions for the
+ * price of one set of tables.
+ */
+public class PatternDatabase implements Heuristic {
+
+    private static final int MAGIC = 0x50444231;     // "PDB1"
+
+    private static final int MAGIC_SHARED = 0x50444232;     // "PDB2", mirrored groups share tables
+
+    private static final int UNSEEN = 0xFF;
+
+    private final int n;
+
+    private final int cells;
+
+    private final int[][] groups;      // blocks of each group
+
+    private final int[] groupOf;       // group of each block, -1 if in none
+
+    private final int[] offsets;       // start of each group's table in data
+
+    private final int[] mirrorOf;      // earlier group whose table is read transposed, -1 if none
+
+    private final boolean[] paired;    // group has a mirror, or is one
+
+    private final boolean reflected;   // also estimate the transposed board
+
+    private final int[] renamed;       // name each block takes in the transpose
+
+    private final ByteBuffer data;
+
+    private PatternDatabase(int n, int[][] groups, ByteBuffer data, int base, boolean shared) {
+        if (n * n > PermutationRank.MAX_CELLS)  throw new IllegalArgumentException(tooLarge());
+        this.n = n;
+        this.cells = n * n;
+        this.groups = groups;
+        this.data = data;
+        this.reflected = false;
+        renamed = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            renamed[i] = Symmetry.transposeBlock(n, i);
+        }
+        mirrorOf = shared ? mirrors(n, groups) : none(groups.length);
+        paired = new boolean[groups.length];
+        for (int g = 0; g < groups.length; g++) {
+            if (mirrorOf[g] != -1)  paired[g] = paired[mirrorOf[g]] = true;
+        }
+
+        groupOf = new int[cells];
+        Arrays.fill(groupOf, -1);
+        offsets = new int[groups.length];
+        long offset = base;
+        for (int g = 0; g < groups.length; g++) {
+            for (int block : groups[g]) {
+                if (block <= 0 || block >= cells || groupOf[block] != -1)
+                    throw new IllegalArgumentException("groups must hold distinct blocks 1 .. " + (cells - 1));
+                groupOf[block] = g;
+            }
+            if (mirrorOf[g] != -1) {
+                offsets[g] = offsets[mirrorOf[g]];
+                continue;
+            }
+            offsets[g] = (int) offset;
+            offset += PermutationRank.placements(cells, groups[g].length);
+        }
+        if (offset > data.limit())  throw new IllegalArgumentException("pattern database is truncated");
+    }
+
+    /**
+     * the same tables, estimating with the larger of the board's and its
+     * transpose's sums
+     */
+    private PatternDatabase(PatternDatabase pdb) {
+        n = pdb.n;
+        cells = pdb.cells;
+        groups = pdb.groups;
+        groupOf = pdb.groupOf;
+        offsets = pdb.offsets;
+        mirrorOf = pdb.mirrorOf;
+        paired = pdb.paired;
+        reflected = true;
+        renamed = pdb.renamed;
+        data = pdb.data;
+    }
+
+    /**
+     * build the tables for an n-by-n board in memory
+     */
+    public static PatternDatabase build(int n, int[][] groups) {
+        int cells = n * n;
+        if (cells > PermutationRank.MAX_CELLS)  throw new IllegalArgumentException(tooLarge());
+        int[] mirrorOf = mirrors(n, groups);
+        long total = 0;
+        for (int g = 0; g < groups.length; g++) {
+            if (mirrorOf[g] == -1)  total += PermutationRank.placements(cells, groups[g].length);
+        }
+        if (total > Integer.MAX_VALUE)  throw new IllegalArgumentException("pattern database too large");
+
+        ByteBuffer data = ByteBuffer.allocate((int) total);
+        for (int g = 0; g < groups.length; g++) {
+            if (mirrorOf[g] == -1)  data.put(buildGroup(n, groups[g]));
+        }
+        return new PatternDatabase(n, copy(groups), data, 0, true);
+    }
+
+    /**
+     * map a file written by write
+     */
+    public static PatternDatabase load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = data.getInt();
+            if (magic != MAGIC && magic != MAGIC_SHARED)    throw new IOException(file + " is not a pattern database");
+            int n = data.getInt();
+            int[][] groups = new int[data.getInt()][];
+            for (int g = 0; g < groups.length; g++) {
+                groups[g] = new int[data.getInt()];
+                for (int i = 0; i < groups[g].length; i++) {
+                    groups[g][i] = data.getInt();
+                }
+            }
+            return new PatternDatabase(n, groups, data, data.position(), magic == MAGIC_SHARED);
+        }
+    }
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            boolean shared = false;
+            for (int m : mirrorOf)  shared |= m != -1;
+            out.writeInt(shared ? MAGIC_SHARED : MAGIC);
+            out.writeInt(n);
+            out.writeInt(groups.length);
+            for (int[] group : groups) {
+                out.writeInt(group.length);
+                for (int block : group)     out.writeInt(block);
+            }
+            for (int g = 0; g < groups.length; g++) {
+                if (mirrorOf[g] != -1)  continue;
+                long size = PermutationRank.placements(cells, groups[g].length);
+                for (int i = 0; i < size; i++) {
+                    out.writeByte(data.get(offsets[g] + i));
+                }
+            }
+        }
+    }
+
+    /**
+     * the usual partitions: 6-6-3 for 4-by-4, 4-4 for 3-by-3, everything
+     * in one group below that.
+     *
+     * none of their groups is the transpose of another, so no table is
+     * shared. a 4-by-4 partition that shares tables has to pair each
+     * 6-group with its transpose and leave the diagonal 1,6,11. the best
+     * of those, 3,4,5,7,8,12/2,9,10,13,14,15/1,6,11, takes half the space,
+     * but on hard boards expands about 1.5 times the boards the default
+     * does; and reflected() cannot help it, the partition being its own
+     * transpose, while it cuts the default's expansions to about a third
+     */
+    public static int[][] defaultGroups(int n) {
+        switch (n) {
+        case 4:
+            return new int[][] { { 1, 5, 6, 9, 10, 13 }, { 7, 8, 11, 12, 14, 15 }, { 2, 3, 4 } };
+        case 3:
+            return new int[][] { { 1, 2, 3, 4 }, { 5, 6, 7, 8 } };
+        case 2:
+            return new int[][] { { 1, 2, 3 } };
+        default:
+            throw new IllegalArgumentException("no default pattern groups for n = " + n);
+        }
+    }
+
+    public int dimension() {
+        return n;
+    }
+
+    /**
+     * these tables, taking the larger of the estimates of the board and of
+     * its transpose; still admissible, since both are as far from the goal
+     */
+    public PatternDatabase reflected() {
+        return reflected ? this : new PatternDatabase(this);
+    }
+
+    @Override
+    public int estimate(Grid board) {
+        check(board);
+        return reflected ? larger(board, -1, -1) : sum(board, -1, -1);
+    }
+
+    @Override
+    public int update(Grid board, int h, int from, int to) {
+        check(board);
+        int block = board.tileAt(from);
+        int g = groupOf[block];
+        if (reflected) {    // h is a maximum, its parts are gone
+            // the transposed sum looks block up as renamed[block], which may be in a group when block is not
+            if (g == -1 && groupOf[renamed[block]] == -1)   return h;
+            return larger(board, block, to);
+        }
+        if (g == -1)    return h;       // only this block's group can change
+        return h - lookup(g, board, -1, -1, false) + lookup(g, board, block, to, false);
+    }
+
+    /* ************************ private methods **************************************** */
+    private int sum(Grid board, int moved, int to) {
+        int h = 0;
+        for (int g = 0; g < groups.length; g++) {
+            h += lookup(g, board, moved, to, false);
+        }
+        return h;
+    }
+
+    /**
+     * the larger of the sums for board and for its transpose. a group and
+     * its mirror swap values between the two, so only the groups without
+     * one are looked up twice
+     */
+    private int larger(Grid board, int moved, int to) {
+        int h = 0;
+        int t = 0;
+        for (int g = 0; g < groups.length; g++) {
+            int v = lookup(g, board, moved, to, false);
+            h += v;
+            t += paired[g] ? v : lookup(g, board, moved, to, true);
+        }
+        return Math.max(h, t);
+    }
+
+    /**
+     * group g's table value for board, or for its transpose, with block
+     * moved on cell to. a mirrored group reads its twin's table with the
+     * transposed placement
+     */
+    private int lookup(int g, Grid board, int moved, int to, boolean transposed) {
+        int table = mirrorOf[g] == -1 ? g : mirrorOf[g];
+        long rank = PermutationRank.rank(board, groups[table], moved, to, transposed != (table != g));
+        return data.get(offsets[table] + (int) rank) & 0xFF;
+    }
+
+    private void check(Grid board) {
+        if (board.dimension() != n)
+            throw new IllegalArgumentException("pattern database is for " + n + "-by-" + n + " boards");
+    }
+
+    /**
+     * for each group, the earlier group it is the transpose of, -1 if none
+     */
+    private static int[] mirrors(int n, int[][] groups) {
+        int[] mirrorOf = none(groups.length);
+        for (int g = 0; g < groups.length; g++) {
+            int[] image = new int[groups[g].length];
+            for (int i = 0; i < image.length; i++) {
+                image[i] = Symmetry.transposeBlock(n, groups[g][i]);
+            }
+            Arrays.sort(image);
+            for (int h = 0; h < g && mirrorOf[g] == -1; h++) {
+                int[] other = groups[h].clone();
+                Arrays.sort(other);
+                if (mirrorOf[h] == -1 && Arrays.equals(image, other))   mirrorOf[g] = h;
+            }
+        }
+        return mirrorOf;
+    }
+
+    private static int[] none(int groups) {
+        int[] none = new int[groups];
+        Arrays.fill(none, -1);
+        return none;
+    }
+
+    /**
+     * breadth-first search over placements of group's blocks, starting
+     * from the goal. the blank wanders through cells not used by the group
+     * at no cost; each time it swaps with a group block the cost grows by
+     * one. a state is a placement rank times cells plus the blank's cell.
+     */
+    private static byte[] buildGroup(int n, int[] group) {
+        int cells = n * n;
+        int k = group.length;
+        long size = PermutationRank.placements(cells, k);
+        if (size * cells > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("group of " + k + " blocks is too large for " + n + "-by-" + n);
+
+        byte[] dist = new byte[(int) size];
+        Arrays.fill(dist, (byte) UNSEEN);
+        long[] visited = new long[(int) ((size * cells + 63) >>> 6)];
+
+        int[] pos = new int[k];
+        for (int i = 0; i < k; i++) {
+            pos[i] = group[i] - 1;      // goal placement
+        }
+        IntList current = new IntList();
+        IntList next = new IntList();
+        current.add((int) PermutationRank.rank(pos, k, cells) * cells + cells - 1);
+
+        int[] stack = new int[cells];
+        for (int d = 0; current.size > 0; d++) {
+            for (int q = 0; q < current.size; q++) {
+                int state = current.items[q];
+                if (isSet(visited, state))  continue;
+                int r = state / cells;
+                PermutationRank.unrank(r, k, cells, pos);
+                if ((dist[r] & 0xFF) == UNSEEN)     dist[r] = (byte) d;
+
+                long occupied = 0;
+                for (int i = 0; i < k; i++) {
+                    occupied |= 1L << pos[i];
+                }
+                int sp = 0;
+                stack[sp++] = state % cells;
+                set(visited, state);
+                while (sp > 0) {        // flood the blank through free cells
+                    int blank = stack[--sp];
+                    int x = blank / n;
+                    int y = blank % n;
+                    for (int dir = 0; dir < 4; dir++) {
+                        int c;
+                        if      (dir == 0)  c = x != 0 ? blank - n : -1;
+                        else if (dir == 1)  c = x != n - 1 ? blank + n : -1;
+                        else if (dir == 2)  c = y != 0 ? blank - 1 : -1;
+                        else                c = y != n - 1 ? blank + 1 : -1;
+                        if (c == -1)    continue;
+
+                        if ((occupied & (1L << c)) == 0) {
+                            int s = r * cells + c;
+                            if (!isSet(visited, s)) {
+                                set(visited, s);
+                                stack[sp++] = c;
+                            }
+                        } else {                    // group block at c slides into the blank
+                            int i = 0;
+                            while (pos[i] != c)     i++;
+                            pos[i] = blank;
+                            int s = (int) PermutationRank.rank(pos, k, cells) * cells + c;
+                            pos[i] = c;
+                            if (!isSet(visited, s))     next.add(s);
+                        }
+                    }
+                }
+            }
+            IntList t = current;
+            current = next;
+            next = t;
+            next.size = 0;
+        }
+        return dist;
+    }
+
+    private static String tooLarge() {
+        return "pattern databases hold boards of up to " + PermutationRank.MAX_CELLS + " cells";
+    }
+
+    private static boolean isSet(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    private static int[][] copy(int[][] groups) {
+        int[][] copy = new int[groups.length][];
+        for (int g = 0; g < groups.length; g++) {
+            copy[g] = groups[g].clone();
+        }
+        return copy;
+    }
+
+    private static class IntList {
+        int[] items = new int[1024];
+        int size = 0;
+
+        void add(int item) {
+            if (size == items.length)   items = Arrays.copyOf(items, size * 2);
+            items[size++] = item;
+        }
+    }
+
+    /**
+     * build a pattern database and write it to a file:
+     * java my.puzzle.heuristic.PatternDatabase n file [1,5,6/7,8/...]
+     * (mirrored groups, such as 3,4,5,7,8,12/2,9,10,13,14,15/1,6,11, share a table)
+     */
+    public static void main(String[] args) throws IOException {
+        int n = Integer.parseInt(args[0]);
+        int[][] groups = defaultGroups(n);
+        if (args.length > 2) {
+            String[] specs = args[2].split("/");
+            groups = new int[specs.length][];
+            for (int g = 0; g < specs.length; g++) {
+                String[] blocks = specs[g].split(",");
+                groups[g] = new int[blocks.length];
+                for (int i = 0; i < blocks.length; i++) {
+                    groups[g][i] = Integer.parseInt(blocks[i].trim());
+                }
+            }
+        }
+        long start = System.currentTimeMillis();
+        PatternDatabase pdb = build(n, groups);
+        pdb.write(new File(args[1]));
+        System.out.println(String.format("wrote %s (%d bytes) in %d ms",
+                args[1], pdb.data.capacity(), System.currentTimeMillis() - start));
+    }
+}
@@ -0,0 +1,220 @@
+package my.puzzle.heuristic;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import my.puzzle.model.Grid;
+
+/**
+ * walking distance (Takahashi).
+ *
+ * for the vertical part only the rows matter: entry (i, j) of an n-by-n
+ * table counts the blocks in row i whose goal row is j. a vertical move
+ * takes one block from a row next to the blank into the blank's row. the
+ * fewest such moves from a table to the goal table is found once by a
+ * breadth-first search; the horizontal part uses the same search on
+ * columns. the sum never overestimates and is never below Manhattan
+ * distance, since each vertical move shortens the blocks' row distances by
+ * at most one.
+ *
+ * the blank's row is the one holding n - 1 blocks, so the table alone is
+ * the key. a move takes one block of a known goal row from the row above
+ * or below the blank into the blank's row, so the tables a table leads to
+ * are found once, with the distances. the state kept with each board (see
+ * Heuristic.state) is the index of its row table and of its column table;
+ * a vertical move leaves the columns alone and a horizontal move leaves
+ * the rows alone, so update follows one index to the next table and never
+ * looks at the board beyond the block that moved.
+ */
+public class WalkingDistanceHeuristic implements Heuristic {
+
+    private static final int BITS = 3;      // per table entry, counts up to 7
+
+    private final int n;
+
+    private final long[] keys;              // every reachable table, sorted
+
+    private final byte[] distances;         // moves from keys[i] to the goal table
+
+    private final int[] successors;         // [(i * 2 + side) * n + goal], the table reached from keys[i]
+                                            // when a block of that goal row comes from above (side 0) or
+                                            // below (side 1) the blank's row, -1 when there is none
+
+    public WalkingDistanceHeuristic(int n) {
+        if (n < 2 || n > 4)     // n * n entries of BITS bits must fit in a long
+            throw new IllegalArgumentException("walking distance needs 2 <= n <= 4");
+        this.n = n;
+
+        Map<Long, Integer> dist = search();
+        keys = new long[dist.size()];
+        int k = 0;
+        for (long key : dist.keySet()) {
+            keys[k++] = key;
+        }
+        Arrays.sort(keys);
+        distances = new byte[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            distances[i] = (byte) (int) dist.get(keys[i]);
+        }
+
+        successors = new int[keys.length * 2 * n];
+        for (int i = 0; i < keys.length; i++) {
+            int blank = blankRow(keys[i]);
+            for (int side = 0; side < 2; side++) {
+                int row = side == 0 ? blank - 1 : blank + 1;
+                for (int g = 0; g < n; g++) {
+                    int s = (i * 2 + side) * n + g;
+                    if (row < 0 || row >= n || count(keys[i], row, g) == 0)     successors[s] = -1;
+                    else    successors[s] = Arrays.binarySearch(keys, keys[i] - digit(row, g) + digit(blank, g));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int estimate(Grid board) {
+        return distance(state(board));
+    }
+
+    /**
+     * without the state: counts the one table the move changes for board,
+     * and moves one block of it to the other line
+     */
+    @Override
+    public int update(Grid board, int h, int from, int to) {
+        int block = board.tileAt(from);
+        if (from / n == to / n) {       // horizontal move, the rows are unchanged
+            long key = columns(board);
+            int goal = (block - 1) % n;
+            return h - lookup(key) + lookup(key - digit(from % n, goal) + digit(to % n, goal));
+        }
+        long key = rows(board);
+        int goal = (block - 1) / n;
+        return h - lookup(key) + lookup(key - digit(from / n, goal) + digit(to / n, goal));
+    }
+
+    /**
+     * the indexes of the row table and the column table of board, in the
+     * high and low half
+     */
+    @Override
+    public long state(Grid board) {
+        return (long) index(rows(board)) << 32 | index(columns(board));
+    }
+
+    @Override
+    public long next(Grid board, long state, int from, int to) {
+        int block = board.tileAt(from);
+        int side = from < to ? 0 : 1;      // the block comes from above or left of the blank
+        int rows = (int) (state >>> 32);
+        int columns = (int) state;
+        if (from / n == to / n)     columns = successors[(columns * 2 + side) * n + (block - 1) % n];
+        else                        rows = successors[(rows * 2 + side) * n + (block - 1) / n];
+        return (long) rows << 32 | columns;
+    }
+
+    @Override
+    public int update(Grid board, int h, long state, int from, int to) {
+        return distance(next(board, state, from, to));
+    }
+
+    /* ************************ private methods **************************************** */
+    /**
+     * the row table of board
+     */
+    private long rows(Grid board) {
+        check(board);
+        long key = 0;
+        int len = n * n;
+        for (int i = 0; i < len; i++) {
+            int block = board.tileAt(i);
+            if (block != 0)     key += digit(i / n, (block - 1) / n);
+        }
+        return key;
+    }
+
+    private long columns(Grid board) {
+        check(board);
+        long key = 0;
+        int len = n * n;
+        for (int i = 0; i < len; i++) {
+            int block = board.tileAt(i);
+            if (block != 0)     key += digit(i % n, (block - 1) % n);
+        }
+        return key;
+    }
+
+    /**
+     * one block in line (row or column) whose goal line is goal
+     */
+    private long digit(int line, int goal) {
+        return 1L << (BITS * (line * n + goal));
+    }
+
+    private int index(long key) {
+        return Arrays.binarySearch(keys, key);
+    }
+
+    private int lookup(long key) {
+        return distances[index(key)];
+    }
+
+    private int distance(long state) {
+        return distances[(int) (state >>> 32)] + distances[(int) state];
+    }
+
+    private void check(Grid board) {
+        if (board.dimension() != n)
+            throw new IllegalArgumentException("walking distance is for " + n + "-by-" + n + " boards");
+    }
+
+    private int count(long key, int row, int goal) {
+        return (int) (key >>> (BITS * (row * n + goal))) & ((1 << BITS) - 1);
+    }
+
+    private int blankRow(long key) {
+        for (int row = 0; row < n; row++) {
+            int blocks = 0;
+            for (int goal = 0; goal < n; goal++) {
+                blocks += count(key, row, goal);
+            }
+            if (blocks == n - 1)    return row;
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * breadth-first search from the goal table over vertical moves
+     */
+    private Map<Long, Integer> search() {
+        long goal = 0;
+        for (int row = 0; row < n; row++) {
+            goal += (long) (row == n - 1 ? n - 1 : n) << (BITS * (row * n + row));
+        }
+        Map<Long, Integer> dist = new HashMap<>();
+        long[] queue = new long[1024];
+        int head = 0;
+        int tail = 0;
+        dist.put(goal, 0);
+        queue[tail++] = goal;
+        while (head < tail) {
+            long key = queue[head++];
+            int d = dist.get(key);
+            int blank = blankRow(key);
+            for (int row = blank - 1; row <= blank + 1; row += 2) {
+                if (row < 0 || row >= n)    continue;
+                for (int g = 0; g < n; g++) {
+                    if (count(key, row, g) == 0)    continue;
+                    // a block of goal row g moves from row into the blank's row
+                    long next = key - digit(row, g) + digit(blank, g);
+                    if (dist.containsKey(next))     continue;
+                    dist.put(next, d + 1);
+                    if (tail == queue.length)   queue = Arrays.copyOf(queue, tail * 2);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return dist;
+    }
+}
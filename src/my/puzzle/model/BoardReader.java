@@ -0,0 +1,205 @@
+package my.puzzle.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * reads boards in the puzzle*.txt format straight into the packed
+ * encoding of PuzzleBoard, without an int[][] per board.
+ *
+ * a board is its dimension n followed by n * n blocks, all separated by
+ * any whitespace, and a file may hold any number of them one after
+ * another. the channel is read through one reused buffer and the current
+ * board is kept in one reused long (or long[] above 4-by-4), so streaming
+ * a file of millions of boards allocates nothing per board until board()
+ * is asked for a PuzzleBoard:
+ *
+ *   try (BoardReader in = new BoardReader(file)) {
+ *       while (in.next()) {
+ *           solve(in.board());
+ *       }
+ *   }
+ *
+ * between calls to next the reader is itself a Grid over the current
+ * board. malformed input throws IOException naming the board and byte.
+ */
+public class BoardReader implements Grid, Closeable {
+
+    private static final int BUFFER = 1 << 16;
+
+    private final ReadableByteChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+
+    private long offset = 0;        // of buffer's first byte in the channel
+
+    private boolean eof = false;
+
+    private int boards = 0;         // read so far
+
+    private int n = 0;              // of the current board, 0 before the first
+
+    private long packed;            // 4 bits per block, boards up to 4-by-4
+    private long[] wide;            // 8 bits per block for larger boards, reused while n stays put
+    private int vacancy;
+
+    private final long[] seen = new long[(PackedTiles.MAX_N * PackedTiles.MAX_N + 63) >>> 6];
+
+    public BoardReader(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    public BoardReader(ReadableByteChannel channel) {
+        if (channel == null)    throw new IllegalArgumentException();
+        this.channel = channel;
+        buffer.limit(0);
+    }
+
+    /**
+     * first board of a file
+     */
+    public static PuzzleBoard read(Path file) throws IOException {
+        try (BoardReader in = new BoardReader(file)) {
+            if (!in.next())     throw new IOException(file + " holds no board");
+            return in.board();
+        }
+    }
+
+    public static PuzzleBoard read(String file) throws IOException {
+        return read(Paths.get(file));
+    }
+
+    /**
+     * parse the next board
+     *
+     * @return false at the end of the input, leaving the last board current
+     */
+    public boolean next() throws IOException {
+        int size = readInt(true);
+        if (size == -1)     return false;
+        if (size < 1 || size > PackedTiles.MAX_N)   throw error("dimension " + size + " is out of range");
+
+        int len = size * size;
+        boolean nibble = PackedTiles.fitsLong(size);
+        if (!nibble && (wide == null || size != n))     wide = new long[PackedTiles.words(size)];
+        n = size;
+        packed = 0;
+        vacancy = -1;
+        Arrays.fill(seen, 0);
+        for (int i = 0; i < len; i++) {
+            int block = readInt(false);
+            if (block >= len)   throw error("block " + block + " is out of range");
+            if ((seen[block >>> 6] & (1L << block)) != 0)   throw error("block " + block + " appears twice");
+            seen[block >>> 6] |= 1L << block;
+            if (block == 0)     vacancy = i;
+            if (nibble)     packed = PackedTiles.set(packed, i, block);
+            else            PackedTiles.set(wide, i, block);
+        }
+        boards++;
+        return true;
+    }
+
+    /**
+     * a PuzzleBoard holding the current board
+     */
+    public PuzzleBoard board() {
+        if (n == 0)     throw new IllegalStateException("no board read yet");
+        if (PackedTiles.fitsLong(n))    return new PuzzleBoard(n, packed, null, vacancy);
+        return new PuzzleBoard(n, 0, wide.clone(), vacancy);
+    }
+
+    /**
+     * boards read so far, the number of the current one
+     */
+    public int count() {
+        return boards;
+    }
+
+    @Override
+    public int dimension() {
+        return n;
+    }
+
+    @Override
+    public int tileAt(int i) {
+        if (PackedTiles.fitsLong(n))    return PackedTiles.get(packed, i);
+        return PackedTiles.get(wide, i);
+    }
+
+    public int vacancy() {
+        return vacancy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /* ************************ private methods **************************************** */
+    /**
+     * the next non-negative decimal, or -1 when the input ends first and
+     * that is allowed
+     */
+    private int readInt(boolean endAllowed) throws IOException {
+        int c = skipSpace();
+        if (c == -1) {
+            if (endAllowed)     return -1;
+            throw error("input ends inside a board");
+        }
+        if (c < '0' || c > '9')     throw error("unexpected '" + (char) c + "'");
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > 0xFFFF)     throw error("number is too large");
+            buffer.get();
+            c = peek();
+        }
+        if (c != -1 && !isSpace(c))     throw error("unexpected '" + (char) c + "'");
+        return value;
+    }
+
+    private int skipSpace() throws IOException {
+        int c = peek();
+        while (c != -1 && isSpace(c)) {
+            buffer.get();
+            c = peek();
+        }
+        return c;
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    /**
+     * the next byte without consuming it, -1 at the end of the input
+     */
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill())  return -1;
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof)    return false;
+        offset += buffer.limit();
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        if (read == -1)     eof = true;
+        return read > 0;
+    }
+
+    private IOException error(String message) {
+        return new IOException(String.format("board %d, byte %d: %s", boards + 1, offset + buffer.position(), message));
+    }
+}
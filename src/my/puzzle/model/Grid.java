@@ -0,0 +1,27 @@
+package my.puzzle.model;
+
+/**
+ * read-only view of an n-by-n board: blocks numbered 1 .. n*n - 1 in
+ * row-major order, 0 for the blank
+ */
+public interface Grid {
+
+    int dimension();
+
+    /**
+     * block at index i (row-major), 0 for the blank
+     */
+    int tileAt(int i);
+
+    /**
+     * index of block, -1 if it is not on the board; a scan by default,
+     * which boards that can find a block faster override
+     */
+    default int indexOf(int block) {
+        int len = dimension() * dimension();
+        for (int i = 0; i < len; i++) {
+            if (tileAt(i) == block)     return i;
+        }
+        return -1;
+    }
+}
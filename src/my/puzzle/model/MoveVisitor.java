@@ -0,0 +1,16 @@
+package my.puzzle.model;
+
+/**
+ * callback for PuzzleBoard.forEachMove, told about each legal move without
+ * a neighbor board being built for it
+ */
+public interface MoveVisitor {
+
+    /**
+     * @param key  the arrow key of the move, as taken by shift and moved
+     * @param from index of the block that would slide into the blank;
+     *             Heuristic.update(board, h, from, board.getVacancy())
+     *             gives the neighbor's estimate
+     */
+    void visit(int key, int from);
+}
@@ -0,0 +1,172 @@
+package my.puzzle.model;
+
+/**
+ * helpers for the packed block encodings used by the boards.
+ *
+ * boards up to 4-by-4 keep 4 bits per block in one long, block i in bits
+ * [4i, 4i + 4). larger boards keep 8 bits per block in a long[], eight
+ * blocks per word, so blocks up to 255 (n <= 16) fit.
+ *
+ * the blank is stored as 0, so sliding a block into the blank only has to
+ * clear one slot and fill another.
+ */
+public final class PackedTiles {
+
+    /**
+     * largest dimension that fits in a single long
+     */
+    public static final int MAX_NIBBLE_N = 4;
+
+    /**
+     * largest dimension the byte packing can hold
+     */
+    public static final int MAX_N = 16;
+
+    private static final long NIBBLE_ONES = 0x1111111111111111L;
+    private static final long NIBBLE_HIGHS = 0x8888888888888888L;
+    private static final long BYTE_ONES = 0x0101010101010101L;
+    private static final long BYTE_HIGHS = 0x8080808080808080L;
+
+    private PackedTiles() { }
+
+    public static boolean fitsLong(int n) {
+        return n <= MAX_NIBBLE_N;
+    }
+
+    /**
+     * number of longs one n-by-n board takes
+     */
+    public static int words(int n) {
+        if (fitsLong(n))    return 1;
+        return (n * n + 7) >>> 3;
+    }
+
+    /* ************************ 4 bits per block, one long ********************** */
+    public static int get(long packed, int i) {
+        return (int) (packed >>> (i << 2)) & 0xF;
+    }
+
+    public static long set(long packed, int i, int block) {
+        int shift = i << 2;
+        return (packed & ~(0xFL << shift)) | ((long) block << shift);
+    }
+
+    /**
+     * move the block at from into the blank at to
+     */
+    public static long slide(long packed, int from, int to) {
+        int shift = from << 2;
+        long block = (packed >>> shift) & 0xF;
+        return (packed & ~(0xFL << shift)) | (block << (to << 2));
+    }
+
+    /**
+     * index of block, -1 if it is not there. every nibble is compared at
+     * once: one xor zeroes the nibbles holding block, and the lowest zero
+     * nibble is the lowest set bit of (x - 0x11..1) & ~x & 0x88..8
+     */
+    public static int indexOf(long packed, int block) {
+        long x = packed ^ (NIBBLE_ONES * block);
+        long zero = (x - NIBBLE_ONES) & ~x & NIBBLE_HIGHS;
+        return zero == 0 ? -1 : Long.numberOfTrailingZeros(zero) >>> 2;
+    }
+
+    public static long pack(int[][] blocks) {
+        long packed = 0;
+        int len = blocks.length;
+        for (int i = 0; i < len; i++) {
+            for (int j = 0; j < len; j++) {
+                packed = set(packed, i * len + j, blocks[i][j]);
+            }
+        }
+        return packed;
+    }
+
+    /* ************************ 8 bits per block, long[] *********************** */
+    public static int get(long[] words, int i) {
+        return get(words, 0, i);
+    }
+
+    public static void set(long[] words, int i, int block) {
+        set(words, 0, i, block);
+    }
+
+    /**
+     * move the block at from into the blank at to
+     */
+    public static void slide(long[] words, int from, int to) {
+        slide(words, 0, from, to);
+    }
+
+    /*
+     * the same on a board stored at words[offset ..], so that many boards
+     * can share one array
+     */
+    public static int get(long[] words, int offset, int i) {
+        return getByte(words[offset + wordOf(i)], i);
+    }
+
+    public static void set(long[] words, int offset, int i, int block) {
+        int w = offset + wordOf(i);
+        words[w] = setByte(words[w], i, block);
+    }
+
+    /*
+     * and one word at a time, for boards kept somewhere other than a long[]:
+     * block i is in word wordOf(i)
+     */
+    public static int wordOf(int i) {
+        return i >>> 3;
+    }
+
+    public static int getByte(long word, int i) {
+        return (int) (word >>> ((i & 7) << 3)) & 0xFF;
+    }
+
+    public static long setByte(long word, int i, int block) {
+        int shift = (i & 7) << 3;
+        return (word & ~(0xFFL << shift)) | ((long) block << shift);
+    }
+
+    /**
+     * the slot of block within word, 0 .. 7, or -1; the same trick as
+     * indexOf(long, int) a byte at a time
+     */
+    public static int indexOfByte(long word, int block) {
+        long x = word ^ (BYTE_ONES * block);
+        long zero = (x - BYTE_ONES) & ~x & BYTE_HIGHS;
+        return zero == 0 ? -1 : Long.numberOfTrailingZeros(zero) >>> 3;
+    }
+
+    public static int indexOf(long[] words, int block) {
+        for (int w = 0; w < words.length; w++) {
+            int slot = indexOfByte(words[w], block);
+            if (slot != -1)     return (w << 3) + slot;
+        }
+        return -1;
+    }
+
+    public static void slide(long[] words, int offset, int from, int to) {
+        int block = get(words, offset, from);
+        set(words, offset, from, 0);
+        set(words, offset, to, block);
+    }
+
+    public static long[] packWide(int[][] blocks) {
+        int len = blocks.length;
+        long[] words = new long[words(len)];
+        for (int i = 0; i < len; i++) {
+            for (int j = 0; j < len; j++) {
+                set(words, i * len + j, blocks[i][j]);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * spread the packed bits so that nearby boards land in different buckets
+     */
+    public static int hash(long packed) {
+        return (int) ((packed * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
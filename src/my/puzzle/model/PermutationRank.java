@@ -0,0 +1,135 @@
+package my.puzzle.model;
+
+/**
+ * dense indexes for placements of distinct blocks on the cells of a board,
+ * the keys of the distance tables and pattern databases.
+ *
+ * a placement of k blocks on cells cells is ranked by its mixed-radix
+ * Lehmer code: block i's digit is its cell minus the number of smaller
+ * cells used by blocks 0 .. i-1, with radix cells - i. ranks run from 0 to
+ * placements(cells, k) - 1, and with k == cells this is the usual
+ * factorial-base rank of a permutation. the used cells are kept in a
+ * bitmask, so a digit is one popcount: ranking is O(k) and unranking
+ * O(k * cells) in the worst case, with nothing allocated. up to 64 cells.
+ */
+public final class PermutationRank {
+
+    /**
+     * most cells the bitmask can hold
+     */
+    public static final int MAX_CELLS = 64;
+
+    private PermutationRank() { }
+
+    /**
+     * cells! / (cells - k)!, the number of ways to place k distinct blocks
+     */
+    public static long placements(int cells, int k) {
+        long p = 1;
+        for (int i = 0; i < k; i++) {
+            p *= cells - i;
+        }
+        return p;
+    }
+
+    /**
+     * rank of the placement putting block i on cell pos[i], for i < k
+     */
+    public static long rank(int[] pos, int k, int cells) {
+        long used = 0;
+        long rank = 0;
+        for (int i = 0; i < k; i++) {
+            int p = pos[i];
+            rank = rank * (cells - i) + p - Long.bitCount(used & ((1L << p) - 1));
+            used |= 1L << p;
+        }
+        return rank;
+    }
+
+    /**
+     * rank of the placement of blocks as they sit on board, with block
+     * moved on cell to instead (moved -1 for none); the form pattern
+     * databases use. each block is found with board.indexOf and ranked as
+     * it is found, so nothing is allocated and no other cell is read.
+     * transposed ranks the placement in the board's transpose (see
+     * Symmetry): block b there is block transposeBlock(b) here, on the
+     * mirrored cell
+     */
+    public static long rank(Grid board, int[] blocks, int moved, int to, boolean transposed) {
+        int n = board.dimension();
+        int cells = n * n;
+        long used = 0;
+        long rank = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            int block = transposed ? Symmetry.transposeBlock(n, blocks[i]) : blocks[i];
+            int p = block == moved ? to : board.indexOf(block);
+            if (transposed)     p = Symmetry.transposeIndex(n, p);
+            rank = rank * (cells - i) + p - Long.bitCount(used & ((1L << p) - 1));
+            used |= 1L << p;
+        }
+        return rank;
+    }
+
+    /**
+     * the placement of k blocks with the given rank, written to pos[0 .. k)
+     */
+    public static void unrank(long rank, int k, int cells, int[] pos) {
+        for (int i = k - 1; i >= 0; i--) {      // mixed radix digits
+            pos[i] = (int) (rank % (cells - i));
+            rank /= cells - i;
+        }
+        long used = 0;
+        for (int i = 0; i < k; i++) {           // digit d is the d-th free cell
+            pos[i] = nthFree(used, pos[i]);
+            used |= 1L << pos[i];
+        }
+    }
+
+    /**
+     * rank of a board packed 4 bits per block (see PackedTiles) as a
+     * permutation of its cells, the blank as 0; up to 4-by-4
+     */
+    public static long rank(long packed, int cells) {
+        if (cells > 16)     throw new IllegalArgumentException("a packed long holds 16 cells");
+        long used = 0;
+        long rank = 0;
+        for (int i = 0; i < cells; i++) {
+            int v = PackedTiles.get(packed, i);
+            rank = rank * (cells - i) + v - Long.bitCount(used & ((1L << v) - 1));
+            used |= 1L << v;
+        }
+        return rank;
+    }
+
+    /**
+     * the packed board whose rank(packed, cells) is rank
+     */
+    public static long unrank(long rank, int cells) {
+        if (cells > 16)     throw new IllegalArgumentException("a packed long holds 16 cells");
+        long digits = 0;                        // one digit per nibble, like the board
+        for (int i = cells - 1; i >= 0; i--) {
+            digits = PackedTiles.set(digits, i, (int) (rank % (cells - i)));
+            rank /= cells - i;
+        }
+        long packed = 0;
+        long used = 0;
+        for (int i = 0; i < cells; i++) {
+            int v = nthFree(used, PackedTiles.get(digits, i));
+            packed = PackedTiles.set(packed, i, v);
+            used |= 1L << v;
+        }
+        return packed;
+    }
+
+    /* ************************ private methods **************************************** */
+    /**
+     * the d-th (from 0) cell not in used
+     */
+    private static int nthFree(long used, int d) {
+        long free = ~used;
+        for (int j = 0; j < d; j++) {
+            free &= free - 1;                   // drop the lowest free cell
+        }
+        return Long.numberOfTrailingZeros(free);
+    }
+}
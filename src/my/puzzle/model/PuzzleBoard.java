@@ -1,14 +1,14 @@
 package my.puzzle.model;
 
+import java.util.Arrays;
+
 import edu.princeton.cs.algs4.Queue;
 import my.puzzle.state.GamingState;
 import my.puzzle.state.GoalState;
 import my.puzzle.state.InitialState;
 import my.puzzle.state.State;
 
-public class PuzzleBoard {
-
-    private static final int TRANS = 48;
+public class PuzzleBoard implements Grid {
 
     /**
      * Constant for the non-numpad <b>left</b> arrow key.
@@ -31,84 +31,179 @@ public class PuzzleBoard {
     public static final int VK_DOWN           = 0x28;
 
 
-    private State initial;
+    private State initial;          // game states, created on first use since search boards never need them
     private State gaming;
     private State goal;
 
     private State current;
 
-    public final char[] blockz;
+    private long packed;            // 4 bits per block, boards up to 4-by-4
+    private final long[] wide;      // 8 bits per block for larger boards, null otherwise
     private int vacancy;
     private final int n;
-    @SuppressWarnings("unused")
-    private int manhattan;
+    private int manhattan;          // kept up to date by slide(), never recomputed per call
 
     private int score = 0;
 
-    private Queue<PuzzleBoard> neighbors;
-
     public PuzzleBoard(int[][] blocks) {
-        initial = new InitialState(this);
-        gaming = new GamingState(this);
-        goal = new GoalState(this);
-        current = initial;
-
         vacancy = validate(blocks);     // validate
         n = blocks.length;              // set length
-        blockz = copy(blocks);          // allocate array
+        if (PackedTiles.fitsLong(n)) {  // pack blocks
+            packed = PackedTiles.pack(blocks);
+            wide = null;
+        } else {
+            wide = PackedTiles.packWide(blocks);
+        }
+
+        manhattan = manhattan();
+    }
+
+    /**
+     * a board already packed and checked, for BoardReader
+     */
+    PuzzleBoard(int n, long packed, long[] wide, int vacancy) {
+        this.n = n;
+        this.packed = packed;
+        this.wide = wide;
+        this.vacancy = vacancy;
+        manhattan = manhattan();
+    }
 
-        manhattan = getManhattan();
+    private PuzzleBoard(PuzzleBoard other) {    // copy of other, sharing nothing mutable
+        n = other.n;
+        vacancy = other.vacancy;
+        packed = other.packed;
+        wide = other.wide == null ? null : other.wide.clone();
+        manhattan = other.manhattan;
     }
 
     public void move(int key) {
-        getNeighbor(key);
-        System.out.println(getManhattan());
-        current.change();
+        shift(key);
+        getCurrent().change();
     }
 
-    /* ************************ private methods **************************************** */
-    private void getNeighbor(int key) {
+    /**
+     * slide a block into the blank in place, the way move(key) does, but
+     * without touching the game state. searches use it with
+     * shift(opposite(key)) to apply and undo moves on a single board.
+     *
+     * @return false if the key would push a block off the board
+     */
+    public boolean shift(int key) {
+        int from = source(key);
+        if (from == -1)     return false;
+        slide(from);
+        return true;
+    }
+
+    /**
+     * index of the block that key would slide into the blank, -1 if the
+     * key would push a block off the board
+     */
+    public int source(int key) {
         int x = vacancy / n;    // axis of vacancy block, like n = 3, 5 --> (1, 2)
         int y = vacancy % n;
         switch(key) {
-        case VK_LEFT:
-            if (y != n - 1) {
-                exch(vacancy, vacancy + 1);  
-                vacancy = vacancy + 1;
-            }
-            break;
-        case VK_RIGHT: 
-            if (y != 0) {
-                exch(vacancy, vacancy - 1);  
-                vacancy = vacancy - 1;
-            }
-            break;
-        case VK_UP: 
-            if (x != n - 1) {
-                exch(vacancy, vacancy + n);  
-                vacancy = vacancy + n;
-            }
-            break;
-        case VK_DOWN: 
-            if (x != 0) {
-                exch(vacancy, vacancy - n);  
-                vacancy = vacancy - n;
-            }
-            break;
-        default :
-            break;
+        case VK_LEFT:   return y != n - 1 ? vacancy + 1 : -1;
+        case VK_RIGHT:  return y != 0 ? vacancy - 1 : -1;
+        case VK_UP:     return x != n - 1 ? vacancy + n : -1;
+        case VK_DOWN:   return x != 0 ? vacancy - n : -1;
+        default :       return -1;
+        }
+    }
+
+    /**
+     * a new board with key applied, this board is left alone
+     *
+     * @throws IllegalArgumentException if the key would push a block off the board
+     */
+    public PuzzleBoard moved(int key) {
+        int from = source(key);
+        if (from == -1)     throw new IllegalArgumentException("no block to move for key " + key);
+        PuzzleBoard b = new PuzzleBoard(this);
+        b.slide(from);
+        return b;
+    }
+
+    /**
+     * tell visitor about every legal move, in the order neighbors() returns
+     * the boards; nothing is allocated, so a search can price a move with
+     * its heuristic and call moved(key) only for the ones it keeps
+     */
+    public void forEachMove(MoveVisitor visitor) {
+        forEachMove(n, vacancy, visitor);
+    }
+
+    /**
+     * the moves of any n-by-n board whose blank is at vacancy, for searches
+     * that keep their boards in their own encoding
+     */
+    public static void forEachMove(int n, int vacancy, MoveVisitor visitor) {
+        int x = vacancy / n;    // axis of vacancy block, like n = 3, 5 --> (1, 2)
+        int y = vacancy % n;
+
+        if (x != 0)         visitor.visit(VK_DOWN, vacancy - n);      // block above slides down
+        if (x != n - 1)     visitor.visit(VK_UP, vacancy + n);
+        if (y != 0)         visitor.visit(VK_RIGHT, vacancy - 1);
+        if (y != n - 1)     visitor.visit(VK_LEFT, vacancy + 1);
+    }
+
+    /**
+     * the key that undoes key
+     */
+    public static int opposite(int key) {
+        switch(key) {
+        case VK_LEFT:   return VK_RIGHT;
+        case VK_RIGHT:  return VK_LEFT;
+        case VK_UP:     return VK_DOWN;
+        case VK_DOWN:   return VK_UP;
+        default :       return key;
         }
     }
 
+    /**
+     * an independent board holding the same blocks
+     */
+    public PuzzleBoard copy() {
+        return new PuzzleBoard(this);
+    }
+
+    @Override
+    public int dimension() {
+        return n;
+    }
+
+    @Override
+    public int tileAt(int i) {
+        if (wide == null)   return PackedTiles.get(packed, i);
+        return PackedTiles.get(wide, i);
+    }
+
+    @Override
+    public int indexOf(int block) {
+        if (wide == null)   return PackedTiles.indexOf(packed, block);
+        return PackedTiles.indexOf(wide, block);
+    }
+
+    /* ************************ private methods **************************************** */
+    private void initStates() {
+        if (initial != null)    return;
+        initial = new InitialState(this);
+        gaming = new GamingState(this);
+        goal = new GoalState(this);
+        current = initial;
+    }
+
     private int validate(int[][] blocks) {
         int vacant = -1;  // vacancy for this method
         if (blocks == null || blocks.length == 0 || blocks[0].length == 0)
             throw new IllegalArgumentException();
 
         int len = blocks.length;
+        if (len > PackedTiles.MAX_N)    throw new IllegalArgumentException();
         for (int i = 0; i < len; i++) {
             for (int j = 0; j < len; j++) {
-                if (blocks[i][j] < 0)   throw new IllegalArgumentException();
+                if (blocks[i][j] < 0 || blocks[i][j] >= len * len)   throw new IllegalArgumentException();
                 else if (blocks[i][j] == 0) {
                     vacant = i * len + j;
                 }   
@@ -117,31 +212,47 @@ public class PuzzleBoard {
         if (vacant == -1)       throw new IllegalArgumentException();
         return vacant;
     }
-    private void exch(int a, int b) {
-        char t = blockz[a];
-        blockz[a] = blockz[b];
-        blockz[b] = t;
+    /**
+     * move the block at index from into the blank, which then sits at from;
+     * only the two slots change, so this is O(1) on the packed blocks, and
+     * only that block's distance changes, so manhattan is updated by a delta
+     */
+    private void slide(int from) {
+        int block = tileAt(from);
+        manhattan += distance(block, vacancy) - distance(block, from);
+        if (wide == null)   packed = PackedTiles.slide(packed, from, vacancy);
+        else                PackedTiles.slide(wide, from, vacancy);
+        vacancy = from;
     }
-    private char[] copy(int[][] blocks) {
-        char[] copy = new char[n * n];
-        int len = blocks.length;
-        for (int i = 0; i < len; i++) {
-            for (int j = 0; j < len; j++) {
-                copy[i * len + j] = (char) (blocks[i][j] + TRANS);
-            }
-        }
-        return copy;
+    /**
+     * manhattan distance of block when it sits at index i
+     */
+    private int distance(int block, int i) {
+        int node = block - 1;
+        int x = node / n - i / n;
+        int y = node % n - i % n;
+        return (x > 0 ? x : -x) + (y > 0 ? y : -y);
+    }
+    private void setTile(int i, int block) {
+        if (wide == null)   packed = PackedTiles.set(packed, i, block);
+        else                PackedTiles.set(wide, i, block);
+    }
+    private void exch(int a, int b) {
+        int t = tileAt(a);
+        setTile(a, tileAt(b));
+        setTile(b, t);
     }
     private int manhattan() {
         int mManhattan  = 0;
-        int len = blockz.length;
+        int len = n * n;
         for (int i = 0; i < len; i++) {
-            if ((blockz[i] != '0') && (blockz[i] != (char) (i  + 1 + TRANS))) {
+            int block = tileAt(i);
+            if ((block != 0) && (block != i + 1)) {
 
                 // e.g.: 8 is in index 1 -->(0, 1) : first row, second column  
                 // 8 - 1 = 7, x = 7 / 3 - 0 = 2, y = 7 % 3 - 1 = 0
                 // so manhattan distance of 7 is 2 + 0 = 2
-                int node = blockz[i] - TRANS - 1;
+                int node = block - 1;
                 int x = node / n - i / n;        
                 int y = node % n - i % n;
 
@@ -153,9 +264,47 @@ public class PuzzleBoard {
         }
         return mManhattan;
     }
+    /**
+     * count pairs of blocks (blank excluded) that appear in the opposite order
+     * of the goal, using a merge sort so it takes O(n^2 log n) for n^2 blocks
+     */
+    private long inversions() {
+        int len = n * n;
+        int[] a = new int[len - 1];
+        for (int i = 0, k = 0; i < len; i++) {
+            int block = tileAt(i);
+            if (block != 0)     a[k++] = block;
+        }
+        return countInversions(a, new int[a.length], 0, a.length - 1);
+    }
+    private long countInversions(int[] a, int[] aux, int lo, int hi) {
+        if (hi <= lo)   return 0;
+        int mid = lo + (hi - lo) / 2;
+        long count = countInversions(a, aux, lo, mid) + countInversions(a, aux, mid + 1, hi);
+
+        System.arraycopy(a, lo, aux, lo, hi - lo + 1);
+        int i = lo, j = mid + 1;
+        for (int k = lo; k <= hi; k++) {
+            if      (i > mid)           a[k] = aux[j++];
+            else if (j > hi)            a[k] = aux[i++];
+            else if (aux[j] < aux[i]) { a[k] = aux[j++]; count += mid - i + 1; }
+            else                        a[k] = aux[i++];
+        }
+        return count;
+    }
     /* ************************ getter and setter methods ********************** */
     public int getManhattan() {
-        return manhattan();
+        return manhattan;
+    }
+    /**
+     * whether the goal can be reached from this board, decided by parity
+     * instead of searching: every move keeps the inversion count's parity
+     * (odd n) or flips it together with the blank's row (even n)
+     */
+    public boolean isSolvable() {
+        long inversions = inversions();
+        if (n % 2 == 1)     return inversions % 2 == 0;
+        return (inversions + vacancy / n) % 2 == 1;
     }
     public int getVacancy() {
         return vacancy;
@@ -164,26 +313,32 @@ public class PuzzleBoard {
         this.vacancy = vacancy;
     }
     public State getCurrent() {
+        initStates();
         return current;
     }
 
     public void setCurrent(State current) {
+        initStates();
         this.current = current;
     }
 
     public State getGaming() {
+        initStates();
         return gaming;
     }
 
     public void setGaming(State gaming) {
+        initStates();
         this.gaming = gaming;
     }
 
     public State getGoal() {
+        initStates();
         return goal;
     }
 
     public void setGoal(State goal) {
+        initStates();
         this.goal = goal;
     }
 
@@ -203,56 +358,38 @@ public class PuzzleBoard {
     public PuzzleBoard twin() {
             int p1 = 0;
             int p2 = n * n - 1;
-            if (blockz[p1] == '0') p1++;
-            if (blockz[p2] == '0') p2--;
+            if (tileAt(p1) == 0) p1++;
+            if (tileAt(p2) == 0) p2--;
 
-            exch(p1, p2);       // swap entry by indexes
-            PuzzleBoard twin = new PuzzleBoard(getArray(blockz));
-            exch(p2, p1);   // swap back for another use    
+            PuzzleBoard twin = new PuzzleBoard(this);
+            twin.exch(p1, p2);       // swap entry by indexes
+            twin.manhattan = twin.manhattan();     // two blocks moved, not a slide
             return twin;
     }
 
-    private int[][] getArray(char[] blockz2) {
-        int[][] blocks = new int[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                blocks[i][j] =  blockz2[i * n + j] - TRANS;
-            }
-        }
-        return blocks;
+    @Override
+    public boolean equals(Object y) {       // does this board hold the same blocks as y?
+        if (y == this)  return true;
+        if (y == null)  return false;
+        if (y.getClass() != this.getClass())    return false;
+
+        PuzzleBoard b = (PuzzleBoard) y;
+        return n == b.n && packed == b.packed && Arrays.equals(wide, b.wide);
     }
 
-    public Iterable<PuzzleBoard> neighbors() {
-        if (neighbors == null) {
-            neighbors = generateNeighbors();
-        }
-        return neighbors;
+    @Override
+    public int hashCode() {
+        if (wide == null)   return PackedTiles.hash(packed);
+        return Arrays.hashCode(wide);
     }
-    private Queue<PuzzleBoard> generateNeighbors() {
-        Queue<PuzzleBoard> mNeighbors = new Queue<>();
-        int x = vacancy / n;    // axis of vacancy block, like n = 3, 5 --> (1, 2)
-        int y = vacancy % n;
 
-        if (x != 0) {      
-            exch(vacancy, vacancy - n);   
-            mNeighbors.enqueue(new PuzzleBoard(getArray(blockz)));
-            exch(vacancy - n, vacancy);   
-        }
-        if (x != n - 1) {       
-            exch(vacancy, vacancy + n);       // swap entry in vacancy and its upper
-            mNeighbors.enqueue(new PuzzleBoard(getArray(blockz)));
-            exch(vacancy + n, vacancy);   // swap back for another use    
-        }
-        if (y != 0) {       
-            exch(vacancy, vacancy - 1);       
-            mNeighbors.enqueue(new PuzzleBoard(getArray(blockz)));
-            exch(vacancy - 1, vacancy);   
-        }
-        if (y != n - 1) {
-            exch(vacancy, vacancy + 1);   
-            mNeighbors.enqueue(new PuzzleBoard(getArray(blockz)));
-            exch(vacancy + 1, vacancy);   
-        }
-        return mNeighbors;   
+    /**
+     * every board one move away, built fresh on each call and not kept;
+     * searches should use forEachMove instead
+     */
+    public Iterable<PuzzleBoard> neighbors() {
+        Queue<PuzzleBoard> mNeighbors = new Queue<>();
+        forEachMove((key, from) -> mNeighbors.enqueue(moved(key)));
+        return mNeighbors;
     }
 }
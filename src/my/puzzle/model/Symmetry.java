@@ -0,0 +1,57 @@
+package my.puzzle.model;
+
+/**
+ * the goal's mirror symmetry along the main diagonal.
+ *
+ * transposing a board (cell (r, c) to (c, r)) and renaming every block
+ * after the cell its goal position is mirrored to maps the goal onto
+ * itself, since the blank's corner lies on the diagonal. a board and its
+ * transpose are therefore exactly as far from the goal, and a solution of
+ * one becomes a solution of the other by swapping horizontal and vertical
+ * keys.
+ */
+public final class Symmetry {
+
+    private Symmetry() { }
+
+    /**
+     * the cell index i is mirrored to
+     */
+    public static int transposeIndex(int n, int i) {
+        return (i % n) * n + i / n;
+    }
+
+    /**
+     * the name block takes in the transposed board, 0 stays 0
+     */
+    public static int transposeBlock(int n, int block) {
+        if (block == 0)     return 0;
+        return transposeIndex(n, block - 1) + 1;
+    }
+
+    /**
+     * the key doing in the transposed board what key does in this one
+     */
+    public static int transposeKey(int key) {
+        switch (key) {
+        case PuzzleBoard.VK_LEFT:   return PuzzleBoard.VK_UP;
+        case PuzzleBoard.VK_UP:     return PuzzleBoard.VK_LEFT;
+        case PuzzleBoard.VK_RIGHT:  return PuzzleBoard.VK_DOWN;
+        case PuzzleBoard.VK_DOWN:   return PuzzleBoard.VK_RIGHT;
+        default:                    return key;
+        }
+    }
+
+    /**
+     * the transposed and renamed board
+     */
+    public static PuzzleBoard transpose(Grid board) {
+        int n = board.dimension();
+        int[][] blocks = new int[n][n];
+        for (int i = 0; i < n * n; i++) {
+            int j = transposeIndex(n, i);
+            blocks[j / n][j % n] = transposeBlock(n, board.tileAt(i));
+        }
+        return new PuzzleBoard(blocks);
+    }
+}
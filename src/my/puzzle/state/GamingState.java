@@ -12,7 +12,6 @@ public class GamingState extends State {
     public void change() {
         if (board.getManhattan() == 0) {
             board.setCurrent(board.getGoal());
-            System.out.println("You won!!! Your score is " + board.getScore());
         }
         board.setScore(board.getScore() + 1);
     }
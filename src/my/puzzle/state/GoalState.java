@@ -7,7 +7,6 @@ public class GoalState extends State {
         super(board);
     }
     @Override
-    public void change() {
-        System.out.println("You won!!! Your score is " + board.getScore());
+    public void change() {      // the game is over, keys change nothing
     }
 }
@@ -13,7 +13,6 @@ public class InitialState extends State {
         if (board.getCurrent().getClass() == InitialState.class) {
             board.setCurrent(board.getGaming());
             board.setScore(board.getScore() + 1);
-            System.out.println(board.getScore());
         }
     }
     
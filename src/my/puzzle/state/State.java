@@ -18,7 +18,6 @@ public abstract class State {
     }
     
     public void change() {
-        System.out.println("You pressed a key!");
     }
 
     public PuzzleBoard getBoard() {